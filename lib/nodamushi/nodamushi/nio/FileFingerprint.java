@@ -0,0 +1,191 @@
+package nodamushi.nio;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * ファイルの内容が変わったかどうかを判定するためのクラス。<br/>
+ * サイズと更新日時が同じならば内容も同じとみなし(isSameStat)、
+ * そうでない場合は内容のハッシュ値で比較する(equals)。
+ * @author nodamushi
+ *
+ */
+public final class FileFingerprint{
+
+  private static final String ALGORITHM = "SHA-1";
+
+  private final long size;
+  private final long lastModified;
+  private final byte[] hash;
+
+  private FileFingerprint(final long size,final long lastModified,final byte[] hash){
+    this.size = size;
+    this.lastModified = lastModified;
+    this.hash = requireNonNull(hash,"hash");
+  }
+
+  /**
+   * ファイルを読み込んでハッシュ値を計算します。
+   * @param path
+   * @return
+   * @throws IOException
+   */
+  public static FileFingerprint of(final Path path)throws IOException{
+    final BasicFileAttributes a = Files.readAttributes(path, BasicFileAttributes.class);
+    final MessageDigest md = newDigest();
+    try(InputStream in = Files.newInputStream(path)){
+      final byte[] buf = new byte[8192];
+      long size = 0;
+      int read;
+      while((read = in.read(buf))!=-1){
+        md.update(buf, 0, read);
+        size += read;
+      }
+      //属性を取得した後にファイルが変わった場合でも、サイズとハッシュ値は同じ内容から求める
+      return new FileFingerprint(size, a.lastModifiedTime().toMillis(), md.digest());
+    }
+  }
+
+  /**
+   * 既に読み込んだファイルの内容からハッシュ値を計算します。サイズはdataの長さです。
+   * @param a 読み込む前に取得したファイルの属性
+   * @param data ファイルの内容
+   * @return
+   */
+  public static FileFingerprint of(final BasicFileAttributes a,final byte[] data){
+    final MessageDigest md = newDigest();
+    md.update(data);
+    return new FileFingerprint(data.length, a.lastModifiedTime().toMillis(), md.digest());
+  }
+
+  /**
+   * 既に読み込んだファイルの内容からハッシュ値を計算します。バッファのpositionは変更しません。サイズはdataの残りの長さです。
+   * @param a 読み込む前に取得したファイルの属性
+   * @param data ファイルの内容
+   * @return
+   */
+  public static FileFingerprint of(final BasicFileAttributes a,final ByteBuffer data){
+    final MessageDigest md = newDigest();
+    md.update(data.duplicate());
+    return new FileFingerprint(data.remaining(), a.lastModifiedTime().toMillis(), md.digest());
+  }
+
+  /**
+   * toStringで出力した文字列から復元します。
+   * @param s
+   * @return
+   * @throws IllegalArgumentException 形式が正しくない場合
+   */
+  public static FileFingerprint valueOf(final String s){
+    final String[] a = requireNonNull(s,"s").split(":");
+    if(a.length != 3 || (a[2].length()&1)!=0){
+      throw new IllegalArgumentException(s);
+    }
+    final byte[] hash = new byte[a[2].length()/2];
+    for(int i=0;i<hash.length;i++){
+      final int h = Character.digit(a[2].charAt(i*2), 16),l = Character.digit(a[2].charAt(i*2+1), 16);
+      if(h==-1 || l==-1){
+        throw new IllegalArgumentException(s);
+      }
+      hash[i] = (byte)(h<<4|l);
+    }
+    try{
+      return new FileFingerprint(Long.parseLong(a[0]), Long.parseLong(a[1]), hash);
+    }catch(final NumberFormatException e){
+      throw new IllegalArgumentException(s, e);
+    }
+  }
+
+  /**
+   * 文字列をUTF-8で符号化したもののSHA-1を計算します。
+   * @param s
+   * @return 16進数で表したハッシュ値
+   */
+  public static String sha1(final String s){
+    return toHex(newDigest().digest(s.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String toHex(final byte[] hash){
+    final StringBuilder sb = new StringBuilder(hash.length*2);
+    for(final byte b:hash){
+      sb.append(Character.forDigit((b>>4)&0xf, 16))
+      .append(Character.forDigit(b&0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  private static MessageDigest newDigest(){
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new InternalError(e);
+    }
+  }
+
+  public long getSize(){
+    return size;
+  }
+
+  public long getLastModified(){
+    return lastModified;
+  }
+
+  /**
+   * @return 16進数で表したハッシュ値
+   */
+  public String getHash(){
+    return toHex(hash);
+  }
+
+  /**
+   * ファイルを読み込まずに、サイズと更新日時だけで同じかどうかを判定します。
+   * @param a
+   * @return
+   */
+  public boolean isSameStat(final BasicFileAttributes a){
+    return a!=null && a.size() == size && a.lastModifiedTime().toMillis() == lastModified;
+  }
+
+  public boolean isSameStat(final Path path){
+    try {
+      return isSameStat(Files.readAttributes(path, BasicFileAttributes.class));
+    } catch (final IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * サイズとハッシュ値が同じ場合にtrueを返します。更新日時は比較しません。
+   */
+  @Override
+  public boolean equals(final Object obj){
+    if(obj == this){
+      return true;
+    }
+    if(!(obj instanceof FileFingerprint)){
+      return false;
+    }
+    final FileFingerprint f = (FileFingerprint)obj;
+    return f.size == size && Arrays.equals(f.hash, hash);
+  }
+
+  @Override
+  public int hashCode(){
+    return Arrays.hashCode(hash);
+  }
+
+  @Override
+  public String toString(){
+    return size+":"+lastModified+":"+getHash();
+  }
+}
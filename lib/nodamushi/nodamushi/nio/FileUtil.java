@@ -1,197 +1,394 @@
-package nodamushi.nio;
-
-import java.io.BufferedInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Reader;
-import java.io.Writer;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.mozilla.universalchardet.UniversalDetector;
-
-
-
-public class FileUtil{
-
-
-  private static final Pattern LINE_SEPARATOR_PATTERN=Pattern.compile("\r\n|[\n\r\u2028\u2029\u0085\u000c]");
-  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
-
-
-  public static void writeText(final String text,final String path)throws IOException{
-    writeText(text, (Charset)null, LINE_SEPARATOR, Paths.get(path));
-  }
-
-  public static void writeText(final String text,final Path path)throws IOException{
-    writeText(text, (Charset)null, LINE_SEPARATOR, path);
-  }
-
-
-  public static void writeText(final String text,final String charset,final String path)throws IOException{
-    writeText(text, charset==null?null:Charset.forName(charset), LINE_SEPARATOR, Paths.get(path));
-  }
-
-  public static void writeText(final String text,final String charset,final Path path)throws IOException{
-    writeText(text, charset==null?null:Charset.forName(charset), LINE_SEPARATOR, path);
-  }
-
-  public static void writeText(final String text,final String charset,final String lineTerminator,final String path)throws IOException{
-    writeText(text, charset==null?null:Charset.forName(charset), lineTerminator, Paths.get(path));
-  }
-
-  public static void writeText(final String text,final String charset,final String lineTerminator,final Path path)throws IOException{
-    writeText(text, charset==null?null:Charset.forName(charset), lineTerminator, path);
-  }
-
-
-
-  public static void writeText(final String text,final Charset c,final String lineTerminator,final String path)throws IOException{
-    writeText(text, c, lineTerminator, Paths.get(path));
-  }
-
-  public static void writeText(String text,Charset c,String lineTerminator,final Path p)throws IOException{
-    if(lineTerminator == null){
-      lineTerminator = LINE_SEPARATOR;
-    }
-    if(c == null){
-      c = Charset.defaultCharset();
-    }
-    if(text == null){
-      text = "";
-    }
-    try(Writer w = Files.newBufferedWriter(p, c)){
-      _writeText(text, c, lineTerminator, w);
-    }
-  }
-
-  private static void _writeText(final String text,final Charset c,final String lineTerminator,final Writer w)throws IOException{
-    final Matcher m = LINE_SEPARATOR_PATTERN.matcher(text);
-    int index = 0;
-    final int l = text.length();
-    final boolean lt = !lineTerminator.isEmpty();
-    while(m.find(index)){
-      final int s = m.start();
-      final int e = m.end();
-      final int ll = s-index;
-      if(ll!=0){
-        w.write(text, index, ll);
-      }
-
-      if(lt){
-        w.write(lineTerminator);
-      }
-
-      index = e;
-      if(index == l){
-        break;
-      }
-    }
-
-    if(index != l){
-      w.write(text, index, l-index);
-    }
-  }
-
-
-
-  public static String readText(final Path path)throws IOException{
-    return readText(path,null);
-  }
-
-  public static String readText(final String path,final String charset) throws IOException{
-    final Charset c = charset==null?null:Charset.forName(charset);
-    return readText(Paths.get(path),c);
-  }
-
-  public static String readText(final String path)throws IOException{
-    return readText(path,null);
-  }
-
-  public static  String readText(final Path path,Charset c)throws IOException{
-    if(c!=null){
-      return _readText(path, c);
-    }
-
-    try(InputStream in = new BufferedInputStream(Files.newInputStream(path))){
-      final int bsize = 1000;
-      final byte[] buf = new byte[bsize];
-
-      final UniversalDetector ud = new UniversalDetector(null);
-
-      int read;
-      while(!ud.isDone() && (read = in.read(buf))>0){
-        ud.handleData(buf, 0, read);
-      }
-
-      ud.dataEnd();
-      final String encoding = ud.getDetectedCharset();
-      if(encoding != null){
-        c = Charset.forName(encoding);
-      }
-    }
-    if(c==null){
-      c = Charset.defaultCharset();
-    }
-    return _readText(path, c);
-  }
-
-  public static Charset getCharset(final Path path){
-    Charset c = null;
-    try(InputStream in = new BufferedInputStream(Files.newInputStream(path))){
-      final int bsize = 1000;
-      final byte[] buf = new byte[bsize];
-
-      final UniversalDetector ud = new UniversalDetector(null);
-
-      int read;
-      while(!ud.isDone() && (read = in.read(buf))>0){
-        ud.handleData(buf, 0, read);
-      }
-
-      ud.dataEnd();
-      final String encoding = ud.getDetectedCharset();
-      if(encoding != null){
-        c = Charset.forName(encoding);
-      }
-    } catch (final IOException e) {
-
-    }
-    if(c==null){
-      c = Charset.defaultCharset();
-    }
-    return c;
-  }
-
-  private static String _readText(final Path path,final Charset c) throws IOException{
-    final StringBuilder sb = new StringBuilder();
-    try(Reader r = Files.newBufferedReader(path,c)){
-      final int bsize= 1000;
-      final char[] buf=new char[bsize];
-      int read;
-      if(c.name().startsWith("UTF-")){
-        while(true){
-          read = r.read(buf);
-          if(read ==-1){
-            return "";
-          }
-          if(read > 0){
-            final int s = buf[0] == 65279?1:0;//BOM
-            sb.append(buf,s,read-s);
-            break;
-          }
-        }
-      }
-      while((read = r.read(buf))!=-1){
-        sb.append(buf,0,read);
-      }
-    }
-    return sb.toString();
-  }
-
-  private FileUtil(){}
-}
+package nodamushi.nio;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.mozilla.universalchardet.UniversalDetector;
+
+
+
+public class FileUtil{
+
+
+  private static final Pattern LINE_SEPARATOR_PATTERN=Pattern.compile("\r\n|[\n\r\u2028\u2029\u0085\u000c]");
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+
+  public static void writeText(final String text,final String path)throws IOException{
+    writeText(text, (Charset)null, LINE_SEPARATOR, Paths.get(path));
+  }
+
+  public static void writeText(final String text,final Path path)throws IOException{
+    writeText(text, (Charset)null, LINE_SEPARATOR, path);
+  }
+
+
+  public static void writeText(final String text,final String charset,final String path)throws IOException{
+    writeText(text, charset==null?null:Charset.forName(charset), LINE_SEPARATOR, Paths.get(path));
+  }
+
+  public static void writeText(final String text,final String charset,final Path path)throws IOException{
+    writeText(text, charset==null?null:Charset.forName(charset), LINE_SEPARATOR, path);
+  }
+
+  public static void writeText(final String text,final String charset,final String lineTerminator,final String path)throws IOException{
+    writeText(text, charset==null?null:Charset.forName(charset), lineTerminator, Paths.get(path));
+  }
+
+  public static void writeText(final String text,final String charset,final String lineTerminator,final Path path)throws IOException{
+    writeText(text, charset==null?null:Charset.forName(charset), lineTerminator, path);
+  }
+
+
+
+  public static void writeText(final String text,final Charset c,final String lineTerminator,final String path)throws IOException{
+    writeText(text, c, lineTerminator, Paths.get(path));
+  }
+
+  public static void writeText(String text,Charset c,String lineTerminator,final Path p)throws IOException{
+    if(lineTerminator == null){
+      lineTerminator = LINE_SEPARATOR;
+    }
+    if(c == null){
+      c = Charset.defaultCharset();
+    }
+    if(text == null){
+      text = "";
+    }
+    try(Writer w = Files.newBufferedWriter(p, c)){
+      _writeText(text, c, lineTerminator, w);
+    }
+  }
+
+  /**
+   * writeTextと同じ規則で、textの改行をlineTerminatorに置き換えます。
+   * @param text
+   * @param lineTerminator nullの場合はシステムの改行文字
+   * @return
+   */
+  public static String replaceLineSeparator(final String text,String lineTerminator){
+    if(lineTerminator == null){
+      lineTerminator = LINE_SEPARATOR;
+    }
+    final StringWriter w = new StringWriter(text.length());
+    try{
+      _writeText(text, null, lineTerminator, w);
+    }catch(final IOException e){
+      throw new UncheckedIOException(e);//StringWriterなので発生しない
+    }
+    return w.toString();
+  }
+
+  private static void _writeText(final String text,final Charset c,final String lineTerminator,final Writer w)throws IOException{
+    final Matcher m = LINE_SEPARATOR_PATTERN.matcher(text);
+    int index = 0;
+    final int l = text.length();
+    final boolean lt = !lineTerminator.isEmpty();
+    while(m.find(index)){
+      final int s = m.start();
+      final int e = m.end();
+      final int ll = s-index;
+      if(ll!=0){
+        w.write(text, index, ll);
+      }
+
+      if(lt){
+        w.write(lineTerminator);
+      }
+
+      index = e;
+      if(index == l){
+        break;
+      }
+    }
+
+    if(index != l){
+      w.write(text, index, l-index);
+    }
+  }
+
+
+
+  public static String readText(final Path path)throws IOException{
+    return readText(path,null);
+  }
+
+  public static String readText(final String path,final String charset) throws IOException{
+    final Charset c = charset==null?null:Charset.forName(charset);
+    return readText(Paths.get(path),c);
+  }
+
+  public static String readText(final String path)throws IOException{
+    return readText(path,null);
+  }
+
+  /**
+   * ファイルを一度だけ読み込んで文字列に変換します。
+   * @param path
+   * @param c 文字コード。nullの場合はBOMかUniversalDetectorで判定します。
+   * @return
+   * @throws IOException
+   */
+  public static  String readText(final Path path,final Charset c)throws IOException{
+    return readText(readBytes(path), c);
+  }
+
+  /**
+   * ファイルの内容を一括でバイト配列(hasArray()がtrue)に読み込みます。<br/>
+   * (ダイレクトバッファはGCされるまで解放されず、大きなファイルを何度も読み込むと不足するため使いません。
+   * マップするとWindowsではGCされるまでファイルを書き換えられなくなるため、マップもしません)
+   * @param path
+   * @return positionが0、limitが読み込んだサイズのバッファ
+   * @throws IOException
+   */
+  public static ByteBuffer readBytes(final Path path)throws IOException{
+    try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)){
+      final long size = ch.size();
+      if(size > Integer.MAX_VALUE){
+        throw new IOException("file is too large:"+path);
+      }
+      final ByteBuffer buf = ByteBuffer.allocate((int)size);
+      while(buf.hasRemaining() && ch.read(buf) >= 0){}
+      buf.flip();
+      return buf;
+    }
+  }
+
+  /**
+   * バイト列を文字列に変換します。
+   * @param data
+   * @param c 文字コード。nullの場合はBOMかUniversalDetectorで判定します。
+   * @return
+   */
+  public static String readText(final byte[] data,final Charset c){
+    return readText(ByteBuffer.wrap(data), c);
+  }
+
+  /**
+   * バッファのpositionからlimitまでを文字列に変換します。バッファのpositionは変更しません。
+   * @param data
+   * @param c 文字コード。nullの場合はBOMかUniversalDetectorで判定します。
+   * @return
+   */
+  public static String readText(final ByteBuffer data,Charset c){
+    int offset = 0;
+    if(c == null){
+      c = getBOMCharset(data);
+      if(c != null){
+        offset = c == StandardCharsets.UTF_8? 3: 2;
+      }else{
+        c = getCharset(data);
+      }
+    }
+    String s;
+    if(data.hasArray()){
+      s = new String(data.array(), data.arrayOffset()+data.position()+offset, data.remaining()-offset, c);
+    }else{
+      final ByteBuffer in = data.duplicate();
+      in.position(in.position()+offset);
+      try {
+        s = decode(in, c, CodingErrorAction.REPLACE);
+      } catch (final CharacterCodingException e) {
+        throw new IllegalStateException(e);//REPLACEなので発生しない
+      }
+    }
+    if(c.name().startsWith("UTF-") && !s.isEmpty() && s.charAt(0) == 65279){//BOM
+      s = s.substring(1);
+    }
+    return s;
+  }
+
+  /**
+   * BOMから文字コードを判定します。
+   * @param data
+   * @return BOMが無い場合はnull
+   */
+  public static Charset getBOMCharset(final byte[] data){
+    return getBOMCharset(ByteBuffer.wrap(data));
+  }
+
+  /**
+   * BOMから文字コードを判定します。
+   * @param data
+   * @return BOMが無い場合はnull
+   */
+  public static Charset getBOMCharset(final ByteBuffer data){
+    final int p = data.position();
+    final int l = data.remaining();
+    if(l >= 3 && (data.get(p)&0xff)==0xef && (data.get(p+1)&0xff)==0xbb && (data.get(p+2)&0xff)==0xbf){
+      return StandardCharsets.UTF_8;
+    }
+    if(l >= 2){
+      final int b0 = data.get(p)&0xff, b1 = data.get(p+1)&0xff;
+      if(b0 == 0xfe && b1 == 0xff){
+        return StandardCharsets.UTF_16BE;
+      }
+      if(b0 == 0xff && b1 == 0xfe){
+        return StandardCharsets.UTF_16LE;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * UniversalDetectorでバイト列の文字コードを判定します。
+   * @param data
+   * @return 判定できなかった場合はCharset.defaultCharset()
+   */
+  public static Charset getCharset(final byte[] data){
+    return getCharset(ByteBuffer.wrap(data));
+  }
+
+  /**
+   * UniversalDetectorでバイト列の文字コードを判定します。
+   * @param data
+   * @return 判定できなかった場合はCharset.defaultCharset()
+   */
+  public static Charset getCharset(final ByteBuffer data){
+    final Charset c = detectCharset(data);
+    return c == null? Charset.defaultCharset(): c;
+  }
+
+  /**
+   * UniversalDetectorでバイト列の文字コードを判定します。
+   * @param data
+   * @return 判定できなかった場合はnull
+   */
+  public static Charset detectCharset(final byte[] data){
+    return detectCharset(ByteBuffer.wrap(data));
+  }
+
+  /**
+   * UniversalDetectorでバイト列の文字コードを判定します。バッファのpositionは変更しません。
+   * @param data
+   * @return 判定できなかった場合はnull
+   */
+  public static Charset detectCharset(final ByteBuffer data){
+    final int bsize = 4096;
+    final UniversalDetector ud = new UniversalDetector(null);
+    if(data.hasArray()){
+      final byte[] array = data.array();
+      final int start = data.arrayOffset()+data.position();
+      final int end = start+data.remaining();
+      for(int i=start;i<end && !ud.isDone();i+=bsize){
+        ud.handleData(array, i, Math.min(bsize, end-i));
+      }
+    }else{
+      final ByteBuffer in = data.duplicate();
+      final byte[] buf = new byte[bsize];
+      while(in.hasRemaining() && !ud.isDone()){
+        final int read = Math.min(bsize, in.remaining());
+        in.get(buf, 0, read);
+        ud.handleData(buf, 0, read);
+      }
+    }
+    ud.dataEnd();
+    final String encoding = ud.getDetectedCharset();
+    if(encoding != null){
+      try{
+        return Charset.forName(encoding);
+      }catch(final IllegalArgumentException e){}
+    }
+    return null;
+  }
+
+  /**
+   * バイト列をcで文字列に変換します。readTextと異なり、cで変換できないバイト列があった場合は例外を投げます。
+   * @param data
+   * @param c
+   * @return
+   * @throws CharacterCodingException cで変換できないバイト列があった場合
+   */
+  public static String decode(final byte[] data,final Charset c)throws CharacterCodingException{
+    return decode(ByteBuffer.wrap(data), c, CodingErrorAction.REPORT);
+  }
+
+  /**
+   * バッファのpositionからlimitまでをcで文字列に変換します。バッファのpositionは変更しません。<br/>
+   * readTextと異なり、cで変換できないバイト列があった場合は例外を投げます。
+   * @param data
+   * @param c
+   * @return
+   * @throws CharacterCodingException cで変換できないバイト列があった場合
+   */
+  public static String decode(final ByteBuffer data,final Charset c)throws CharacterCodingException{
+    return decode(data.duplicate(), c, CodingErrorAction.REPORT);
+  }
+
+  /**
+   * 平均的な変換結果の長さの配列を確保して変換し、足りない場合だけ広げます。
+   */
+  private static String decode(final ByteBuffer in,final Charset c,final CodingErrorAction action)
+      throws CharacterCodingException{
+    final CharsetDecoder d = c.newDecoder()
+        .onMalformedInput(action)
+        .onUnmappableCharacter(action);
+    CharBuffer out = CharBuffer.allocate((int)Math.ceil(in.remaining()*(double)d.averageCharsPerByte())+16);
+    while(true){
+      CoderResult r = in.hasRemaining()? d.decode(in, out, true): CoderResult.UNDERFLOW;
+      if(r.isUnderflow()){
+        r = d.flush(out);
+      }
+      if(r.isUnderflow()){
+        break;
+      }
+      if(r.isOverflow()){
+        final CharBuffer o = CharBuffer.allocate(
+            out.capacity()+(int)Math.ceil(in.remaining()*(double)d.maxCharsPerByte())+16);
+        out.flip();
+        out = o.put(out);
+        continue;
+      }
+      r.throwException();
+    }
+    return new String(out.array(), 0, out.position());
+  }
+
+  public static Charset getCharset(final Path path){
+    Charset c = null;
+    try(InputStream in = new BufferedInputStream(Files.newInputStream(path))){
+      final int bsize = 1000;
+      final byte[] buf = new byte[bsize];
+
+      final UniversalDetector ud = new UniversalDetector(null);
+
+      int read;
+      while(!ud.isDone() && (read = in.read(buf))>0){
+        ud.handleData(buf, 0, read);
+      }
+
+      ud.dataEnd();
+      final String encoding = ud.getDetectedCharset();
+      if(encoding != null){
+        c = Charset.forName(encoding);
+      }
+    } catch (final IOException e) {
+
+    }
+    if(c==null){
+      c = Charset.defaultCharset();
+    }
+    return c;
+  }
+
+  private FileUtil(){}
+}
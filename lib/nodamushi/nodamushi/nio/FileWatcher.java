@@ -1,535 +1,1148 @@
-package nodamushi.nio;
-
-import static java.nio.file.Files.*;
-import static java.nio.file.StandardWatchEventKinds.*;
-import static java.util.Collections.*;
-import static java.util.Objects.*;
-
-import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.WatchEvent;
-import java.nio.file.WatchEvent.Kind;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Consumer;
-
-import nodamushi.util.ThrowableCatchRunnable;
-
-
-/**
- * 特定のファイルを監視したいために作ったクラス。<br/>
- * 特定のディレクトリの内容も監視可能<br/>
- * すべてのFileWatcherは一つのFileWathcher用のスレッドで動作する。<br/>
- * (ただし、監視待機しているときを除く)
- * @author nodamushi
- *
- */
-public class FileWatcher{
-
-  protected static enum WatchType{
-    FILE,DIRECTORY
-  }
-
-  /**
-   * 監視しているディレクトリもしくはファイルに変化があったときに発効されます。<br/>
-   * PathWatchEventはFileWatchEventか、DirectoryWatchEventのどちらのクラスになります
-   * @author nodamushi
-   *
-   */
-  public static class PathWatchEvent{
-    private final FileWatcher watcher;
-    private final Path key;
-    private final WatchType type;
-    private PathWatchEvent(final FileWatcher w,final Path key,final WatchType type){
-      watcher =requireNonNull(w);
-      this.key = requireNonNull(key,"key");
-      this.type = requireNonNull(type,"type");
-    }
-    public final Path getKey(){return key;}
-    protected final WatchType getType(){return type; }
-    public final boolean isDirectoryEvent(){return type == WatchType.DIRECTORY;}
-    public final boolean isFileEvent(){return type == WatchType.FILE;}
-    public final FileWatcher getWatcher(){return watcher;}
-  }
-  /**
-   * 監視しているファイルに変化があった際に発効されます
-   * @author nodamushi
-   *
-   */
-  public static class FileWatchEvent extends PathWatchEvent{
-    private final Kind<?> kind;
-    private FileWatchEvent(final FileWatcher w,final Path key,final Kind<?> kind){
-      super(w,key,WatchType.FILE);
-      this.kind = requireNonNull(kind,"kind");
-    }
-    public final Kind<?> getKind(){ return kind; }
-  }
-
-  /**
-   * 監視しているディレクトリに変化があった際に発効されます
-   * @author nodamushi
-   *
-   */
-  public static class DirectoryWatchEvent extends PathWatchEvent{
-    private final List<FileWatchEvent> fileEvents;
-    private DirectoryWatchEvent(final FileWatcher w,final Path key,final List<FileWatchEvent> fileEvents){
-      super(w,key,WatchType.DIRECTORY);
-      this.fileEvents =Collections.unmodifiableList(fileEvents);
-    }
-    public final List<FileWatchEvent> getFileEvents(){
-      return fileEvents;
-    }
-  }
-
-
-
-  private static final Kind<?>[] KINDS={ENTRY_CREATE,ENTRY_DELETE,ENTRY_MODIFY};
-
-  private final WatchService watcher;
-  private final List<Key> fileList,dirList;
-  private final Runnable run;
-  private volatile boolean running=true;
-  private volatile Thread thread;
-
-  public FileWatcher() throws IOException{
-    watcher = FileSystems.getDefault().newWatchService();
-    fileList = new ArrayList<>();
-    dirList = new ArrayList<>();
-    run= ()->{
-      try {
-        final AtomicBoolean cancel = new AtomicBoolean(false);
-        while(running){
-          final WatchKey take = watcher.take();
-          final Path path = (Path)take.watchable();
-          cancel.set(false);
-          final Future<?> f = submit(() ->{
-            final List<WatchEvent<?>> pollEvents = take.pollEvents();
-
-            final int dirIndex = binarySearch(dirList, path);
-            final List<FileWatchEvent> fileEvents = dirIndex >=0?new ArrayList<>(pollEvents.size()):null;
-
-            boolean action = false;
-            for(final WatchEvent<?> event:pollEvents){
-
-              final Kind<?> kind = event.kind();
-
-              if(kind == OVERFLOW){
-                continue;
-              }
-
-              @SuppressWarnings("unchecked")
-              final
-              WatchEvent<Path> e =(WatchEvent<Path>)event;
-              final Path fileName=e.context();
-
-              final Path p = path.resolve(fileName);
-              final int fileIndex = binarySearch(fileList, p);
-              final FileWatchEvent fwe = fileIndex>=0 || dirIndex>=0?new FileWatchEvent(FileWatcher.this,p, kind):null;
-
-
-              if(fileIndex>=0){
-                action = true;
-                final Key key = fileList.get(fileIndex);
-                key.fireEvent(fwe);
-              }
-
-              if(dirIndex>=0){
-                fileEvents.add(fwe);
-              }
-            }
-            if(dirIndex>=0){
-              action = true;
-              final Key key = dirList.get(dirIndex);
-              final DirectoryWatchEvent ev = new DirectoryWatchEvent(FileWatcher.this,path, fileEvents);
-              key.fireEvent(ev);
-            }
-
-            if(!action){
-              final int index = -binarySearch(fileList,path)-1;
-              if(index >=0){
-                final int s = fileList.size();
-                for(int i=index;i<s;i++){
-                  final Key key = fileList.get(i);
-                  final Path p = key.getKey().getParent();
-                  if(p.equals(path)){
-                    action = true;
-                    break;
-                  }else if(!p.startsWith(path)){
-                    break;
-                  }
-                }
-              }
-            }
-
-            if(!action){
-              //監視するものがいなくなった
-              take.cancel();
-            }
-
-          });
-
-          try {
-            f.get();
-          } catch (final ExecutionException e) {
-            e.printStackTrace();
-          }
-
-
-          final boolean v = take.reset();
-          if(!v){
-            take.cancel();
-          }
-        }
-      } catch (final InterruptedException e) {
-        e.printStackTrace();
-      }
-      running=false;
-    };
-    thread = new Thread(run, "watch wait thread");
-    thread.setDaemon(true);
-    thread.start();
-  }
-
-
-  public void stopWatch(){
-    running = false;
-    thread.interrupt();
-  }
-
-  private void addFile(final Consumer<PathWatchEvent> c,final Path path) throws IOException{
-    final int index = binarySearch(fileList, path);
-    if(index >=0){
-      final Key k = fileList.get(index);
-      k.add(c);
-    }else{
-      path.getParent().register(watcher, KINDS);
-      final Key k =new Key(path, WatchType.FILE);
-      k.add(c);
-      fileList.add(-index-1, k);
-    }
-  }
-
-  private void addDirectory(final Consumer<PathWatchEvent> c,final Path path) throws IOException{
-    final int index = binarySearch(dirList, path);
-    if(index >=0){
-      final Key k = dirList.get(index);
-      k.add(c);
-    }else{
-      path.register(watcher, KINDS);
-      final Key k =new Key(path, WatchType.FILE);
-      k.add(c);
-      dirList.add(-index-1, k);
-    }
-  }
-
-  private void removeFile(final Consumer<PathWatchEvent> c,final Path path){
-    final int index = binarySearch(fileList, path);
-    if(index >=0){
-      final Key k = fileList.get(index);
-      k.remove(c);
-      if(k.isEmpty()){
-        fileList.remove(index);
-      }
-    }
-  }
-
-  private void removeDirectory(final Consumer<PathWatchEvent> c,final Path path){
-    final int index = binarySearch(dirList, path);
-    if(index >=0){
-      final Key k = dirList.get(index);
-      k.remove(c);
-      if(k.isEmpty()){
-        dirList.remove(index);
-      }
-    }
-  }
-
-
-  public void watchFile(final Path path,final Consumer<PathWatchEvent> c){
-    if(path == null || c == null) {
-      return;
-    }
-    if(isDirectory(path)){
-      return;
-    }
-
-    final Path p = path.normalize().toAbsolutePath();
-    final Path dir = path.getParent();
-    if(!exists(dir)){
-      return;
-    }
-
-    if(isWatchThread()){
-      try {
-        addFile(c, path);
-      } catch (final IOException e) {
-        e.printStackTrace();
-      }
-    }else{
-      final ThrowableCatchRunnable r = new ThrowableCatchRunnable(()->addFile(c,p));
-      submit(r);
-    }
-  }
-
-
-  public void watchDirectory(final Path path,final Consumer<PathWatchEvent> c){
-    if(path == null || c == null) {
-      return;
-    }
-    if(!isDirectory(path)){
-      return;
-    }
-
-    final Path p = path.normalize().toAbsolutePath();
-    if(isWatchThread()){
-      try {
-        addDirectory(c, path);
-      } catch (final IOException e) {
-        e.printStackTrace();
-      }
-    }else{
-      final ThrowableCatchRunnable r = new ThrowableCatchRunnable(()->addDirectory(c,p));
-      submit(r);
-    }
-  }
-
-
-  public void unwatchFile(final Path path,final Consumer<PathWatchEvent> c){
-    if(path == null || c == null) {
-      return;
-    }
-    final Path p = path.normalize().toAbsolutePath();
-    if(isWatchThread()){
-      removeFile(c, path);
-    }else{
-      submit(()->removeFile(c, p));
-    }
-  }
-
-  public void unwatchDirectory(final Path path,final Consumer<PathWatchEvent> c){
-    if(path == null || c == null) {
-      return;
-    }
-    final Path p = path.normalize().toAbsolutePath();
-    if(isWatchThread()){
-      removeDirectory(c, path);
-    }else{
-      submit(()->removeDirectory(c, p));
-    }
-  }
-
-
-
-
-  protected static class Key implements Comparable<Path>{
-    private final Path key;
-    private final WatchType type;
-    private Actions action = EmptyActions;
-
-    protected Key(final Path key,final WatchType type){
-      this.key = requireNonNull(key,"key");
-      this.type = requireNonNull(type);
-    }
-
-    protected final Path getKey(){
-      return key;
-    }
-
-    protected final WatchType getType(){
-      return type;
-    }
-
-    @Override
-    public int compareTo(final Path o){
-      return key.compareTo(o);
-    }
-    public void add(final Consumer<PathWatchEvent> c){action = action.add(c);}
-    public void remove(final Consumer<PathWatchEvent> c){action = action.remove(c);}
-    public boolean isEmpty(){return action.isEmpty(); }
-    public void fireEvent(final PathWatchEvent e){action.fireEvent(e);}
-  }
-
-  protected static interface Actions{
-    public Actions add(Consumer<PathWatchEvent> action);
-    public Actions remove(Consumer<PathWatchEvent> action);
-    public void fireEvent(PathWatchEvent e);
-    default public boolean isEmpty(){return false;}
-  }
-
-  private static final Actions EmptyActions = new Actions(){
-    @Override public Actions add(final Consumer<PathWatchEvent> action){
-      return action == null? this: new SingleActions(action);
-    }
-    @Override public Actions remove(final Consumer<PathWatchEvent> action){return this;}
-    @Override public void fireEvent(final PathWatchEvent e){}
-    @Override public boolean isEmpty(){return true;}
-  };
-
-  private static final class SingleActions implements Actions{
-    private final Consumer<PathWatchEvent> c;
-    public SingleActions(final Consumer<PathWatchEvent> c){
-      this.c = requireNonNull(c,"c");
-    }
-    @Override
-    public Actions add(final Consumer<PathWatchEvent> action){
-      if(c == action){
-        return this;
-      }
-      return new MultiActions(c, action);
-    }
-
-    @Override
-    public Actions remove(final Consumer<PathWatchEvent> action){
-      if(c == action){
-        return EmptyActions;
-      }
-      return this;
-    }
-
-    @Override
-    public void fireEvent(final PathWatchEvent e){
-      c.accept(e);
-    }
-  }
-
-  private static final class MultiActions implements Actions{
-    private Consumer<?>[] array;
-    private int size;
-    private boolean lock=false;
-    public MultiActions(final Consumer<PathWatchEvent> a,final Consumer<PathWatchEvent> b){
-      array = new Consumer[]{a,b};
-      size = 2;
-    }
-
-    @Override
-    public Actions add(final Consumer<PathWatchEvent> action){
-      if(array.length > size){
-        array[size++] = action;
-      }else{
-        final Consumer<?>[] newa = Arrays.copyOf(array, size+1);
-        newa[size++] = action;
-        array = newa;
-      }
-      return this;
-    }
-
-    @SuppressWarnings("unchecked")
-    @Override
-    public Actions remove(final Consumer<PathWatchEvent> action){
-      int index = -1;
-      final Consumer<?>[] arr = array;
-      int size = this.size;
-      for(int i=0;i<size;i++){
-        if(arr[i]==action){
-          index = i;
-          break;
-        }
-      }
-      if(index == -1){
-        return this;
-      }
-
-      size--;
-      if(size == 1){
-        return new SingleActions((Consumer<PathWatchEvent>) arr[1-index]);
-      }
-
-      if(lock){
-        final Consumer<?>[] newarr = new Consumer<?>[size];
-        if(index!=0){
-          System.arraycopy(arr, 0, newarr, 0, index);
-        }
-        if(index != size+1){
-          System.arraycopy(arr, index+1, newarr, index, size-index);
-        }
-
-      }else{
-        if(index!=0){
-          System.arraycopy(arr, 0, arr, 0, index);
-        }
-        if(index != size){
-          System.arraycopy(arr, index+1, arr, index, size-index);
-        }
-
-        arr[size] = null;
-      }
-      this.size = size;
-
-      return this;
-    }
-    @SuppressWarnings("unchecked")
-    @Override
-    public void fireEvent(final PathWatchEvent e){
-      try{
-        lock = true;
-        final Consumer<?>[] array = this.array;
-        final int size = this.size;
-
-        for(int i=0;i<size;i++){
-          final Consumer<PathWatchEvent> consumer = (Consumer<PathWatchEvent>) array[i];
-          if(consumer!=null){
-            consumer.accept(e);
-          }
-        }
-      }finally{
-        lock = false;
-      }
-
-    }
-  }
-
-
-  protected static Future<?> submit(final Runnable r){
-    return WatchThread.THREAD.submit(r);
-  }
-
-  protected static <V> Future<V> submit(final Callable<V> c){
-    return WatchThread.THREAD.submit(c);
-  }
-  protected static boolean isWatchThread(){
-    return Thread.currentThread().getThreadGroup()==WatchThread.GROUP;
-  }
-  private static final class WatchThread{
-    private static final ThreadGroup GROUP=new ThreadGroup("File watch thread");
-    private static final ExecutorService THREAD;
-    static{
-      GROUP.setDaemon(true);
-      final ExecutorService e = Executors.newSingleThreadExecutor(r->{
-        final Thread t = new Thread(GROUP, r);
-        t.setDaemon(true);
-        return t;
-      });
-      THREAD=e;
-    }
-  }
-
-  public static FileWatcher getDefault(){
-    return A.watcher;
-  }
-
-  private static class A{
-    static final FileWatcher watcher;
-    static{
-      FileWatcher w = null;
-      try {
-        w = new FileWatcher();
-      } catch (final IOException e) {
-      }
-      watcher = w;
-    }
-  }
-
-
-}
+package nodamushi.nio;
+
+import static java.nio.file.Files.*;
+import static java.nio.file.LinkOption.*;
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+
+
+/**
+ * 特定のファイルを監視したいために作ったクラス。<br/>
+ * 特定のディレクトリの内容も監視可能<br/>
+ * watchTreeでディレクトリ以下を再帰的に監視することも可能<br/>
+ * 監視者は登録時に指定したExecutor(指定しない場合はgetDefaultExecutor())で呼び出される。<br/>
+ * 同じ監視者にはイベントを一つずつ順番に渡すが、異なる監視者は並列に呼び出されることがある。<br/>
+ * 監視の登録、解除はどのスレッドから行ってもよい。<br/>
+ * 監視しているディレクトリ直下のファイルの名前、サイズ、更新日時を保持しておき、
+ * イベントが溢れた(OVERFLOW)場合は、ディレクトリを読み直して差分から作成、変更、削除のイベントを作る。
+ * ファイルの監視のためだけに登録しているディレクトリは、監視しているファイルだけを保持する。
+ * @author nodamushi
+ *
+ */
+public class FileWatcher{
+
+  protected static enum WatchType{
+    FILE,DIRECTORY,TREE
+  }
+
+  /**
+   * 監視しているディレクトリもしくはファイルに変化があったときに発効されます。<br/>
+   * PathWatchEventはFileWatchEvent、DirectoryWatchEvent、TreeWatchEventのいずれかのクラスになります
+   * @author nodamushi
+   *
+   */
+  public static class PathWatchEvent{
+    private final FileWatcher watcher;
+    private final Path key;
+    private final WatchType type;
+    private PathWatchEvent(final FileWatcher w,final Path key,final WatchType type){
+      watcher =requireNonNull(w);
+      this.key = requireNonNull(key,"key");
+      this.type = requireNonNull(type,"type");
+    }
+    public final Path getKey(){return key;}
+    protected final WatchType getType(){return type; }
+    public final boolean isDirectoryEvent(){return type == WatchType.DIRECTORY;}
+    public final boolean isFileEvent(){return type == WatchType.FILE;}
+    public final boolean isTreeEvent(){return type == WatchType.TREE;}
+    public final FileWatcher getWatcher(){return watcher;}
+  }
+  /**
+   * 監視しているファイルに変化があった際に発効されます
+   * @author nodamushi
+   *
+   */
+  public static class FileWatchEvent extends PathWatchEvent{
+    private final Kind<?> kind;
+    private FileWatchEvent(final FileWatcher w,final Path key,final Kind<?> kind){
+      super(w,key,WatchType.FILE);
+      this.kind = requireNonNull(kind,"kind");
+    }
+    public final Kind<?> getKind(){ return kind; }
+  }
+
+  /**
+   * 監視しているディレクトリに変化があった際に発効されます
+   * @author nodamushi
+   *
+   */
+  public static class DirectoryWatchEvent extends PathWatchEvent{
+    private final List<FileWatchEvent> fileEvents;
+    private DirectoryWatchEvent(final FileWatcher w,final Path key,final List<FileWatchEvent> fileEvents){
+      super(w,key,WatchType.DIRECTORY);
+      this.fileEvents =Collections.unmodifiableList(fileEvents);
+    }
+    public final List<FileWatchEvent> getFileEvents(){
+      return fileEvents;
+    }
+  }
+
+
+
+  /**
+   * watchTreeで監視しているディレクトリ以下に変化があった際に発効されます。<br/>
+   * getKeyは監視を開始したディレクトリです。
+   * まとめて発生した変化は、サブディレクトリのものも含めて一つのTreeWatchEventで通知されます。
+   * @author nodamushi
+   *
+   */
+  public static class TreeWatchEvent extends PathWatchEvent{
+    private final List<FileWatchEvent> fileEvents;
+    private TreeWatchEvent(final FileWatcher w,final Path key,final List<FileWatchEvent> fileEvents){
+      super(w,key,WatchType.TREE);
+      this.fileEvents =Collections.unmodifiableList(fileEvents);
+    }
+    public final List<FileWatchEvent> getFileEvents(){
+      return fileEvents;
+    }
+  }
+
+  /**
+   * 一度にまとめて処理するWatchKeyの最大数
+   */
+  private static final int MAX_BATCH = 256;
+
+  private static final Kind<?>[] KINDS={ENTRY_CREATE,ENTRY_DELETE,ENTRY_MODIFY};
+
+  private final WatchService watcher;
+  /**
+   * 監視しているファイル
+   */
+  private final Map<Path, Key> files;
+  /**
+   * WatchServiceに登録しているディレクトリ
+   */
+  private final Map<Path, Directory> directories;
+  /**
+   * watchTreeで監視しているディレクトリ
+   */
+  private final Map<Path, Tree> trees;
+  private final Runnable run;
+  private volatile boolean running=true;
+  private volatile Thread thread;
+
+  public FileWatcher() throws IOException{
+    watcher = FileSystems.getDefault().newWatchService();
+    files = new ConcurrentHashMap<>();
+    directories = new ConcurrentHashMap<>();
+    trees = new ConcurrentHashMap<>();
+    run= ()->{
+      try {
+        while(running){
+          WatchKey take = watcher.take();
+          //既に溜まっているWatchKeyもまとめて処理し、TreeWatchEventはTree毎に一つにする
+          final Map<Tree, List<FileWatchEvent>> treeEvents = new HashMap<>();
+          int count = 0;
+          do{
+            final Path path = (Path)take.watchable();
+            final List<WatchEvent<?>> pollEvents = take.pollEvents();
+            //イベントは監視者のExecutorで処理するので、待たずにresetする
+            final boolean v = take.reset();
+            try{
+              dispatch(take, path, pollEvents, treeEvents);
+              if(!v){
+                forget(take, path);
+              }
+            }catch(final RuntimeException e){
+              e.printStackTrace();
+            }
+          }while(++count < MAX_BATCH && (take = watcher.poll())!=null);
+          for(final Map.Entry<Tree, List<FileWatchEvent>> e:treeEvents.entrySet()){
+            final Tree t = e.getKey();
+            t.key.fireEvent(new TreeWatchEvent(this, t.root, e.getValue()));
+          }
+        }
+      } catch (final InterruptedException e) {
+        e.printStackTrace();
+      }
+      running=false;
+    };
+    thread = new Thread(run, "watch wait thread");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+
+  public void stopWatch(){
+    running = false;
+    thread.interrupt();
+  }
+
+  /**
+   * イベントを監視者に渡します。監視者の処理はそれぞれのExecutorで行うので、このメソッドはすぐに戻ります。
+   */
+  private void dispatch(final WatchKey take,final Path path,List<WatchEvent<?>> pollEvents,
+      final Map<Tree, List<FileWatchEvent>> treeEvents){
+    final Directory d = directories.get(path);
+    if(d == null || d.watchKey != take){
+      //directoriesのcomputeが終わる前に届いたイベントか、解除や再登録の後に残っていたイベント。
+      //WatchKeyの取り消しはreleaseだけで行うので、ここではイベントを捨てるだけにする
+      return;
+    }
+
+    boolean overflow = false;
+    for(final WatchEvent<?> event:pollEvents){
+      if(event.kind() == OVERFLOW){
+        overflow = true;
+        break;
+      }
+    }
+    final Snapshot snapshot = d.snapshot;
+    if(overflow){
+      //失われたイベントを、前回の状態との差分から作り直す
+      final Snapshot now = scan(d);
+      pollEvents = snapshot==null? Collections.emptyList(): snapshot.diff(now);
+      d.snapshot = now;
+    }
+
+    final Key dirKey = d.key;
+    final List<FileWatchEvent> fileEvents = dirKey!=null?new ArrayList<>(pollEvents.size()):null;
+    final Tree[] inTrees = d.trees.isEmpty()? null: d.trees.toArray(new Tree[0]);
+
+    for(final WatchEvent<?> event:pollEvents){
+
+      final Kind<?> kind = event.kind();
+
+      if(kind == OVERFLOW){
+        continue;
+      }
+
+      @SuppressWarnings("unchecked")
+      final
+      WatchEvent<Path> e =(WatchEvent<Path>)event;
+      final Path fileName=e.context();
+      final Path p = path.resolve(fileName);
+      final Key fileKey = d.files==0? null: files.get(p);
+      if(!overflow && snapshot!=null && (snapshot.isFull() || fileKey!=null)){
+        snapshot.update(path, fileName);
+      }
+      final FileWatchEvent fwe = fileKey!=null || dirKey!=null || inTrees!=null?
+          new FileWatchEvent(FileWatcher.this,p, kind):null;
+
+
+      if(fileKey!=null){
+        fileKey.fireEvent(fwe);
+      }
+
+      if(dirKey!=null){
+        fileEvents.add(fwe);
+      }
+
+      if(inTrees!=null){
+        final boolean created = kind == ENTRY_CREATE && isDirectory(p, NOFOLLOW_LINKS);
+        for(final Tree t:inTrees){
+          treeEvents.computeIfAbsent(t, k->new ArrayList<>()).add(fwe);
+          if(created){
+            registerTreeLater(t, p);
+          }
+        }
+      }
+    }
+    if(dirKey!=null){
+      final DirectoryWatchEvent ev = new DirectoryWatchEvent(FileWatcher.this,path, fileEvents);
+      dirKey.fireEvent(ev);
+    }
+  }
+
+  /**
+   * 無効になったWatchKey(ディレクトリが削除されたなど)のディレクトリを、監視しているTreeから取り除きます。
+   */
+  private void forget(final WatchKey take,final Path path){
+    //Treeのロックはdirectoriesのcomputeの外で取る
+    final List<Tree> removed = new ArrayList<>();
+    directories.computeIfPresent(path, (dir,d)->{
+      if(d.watchKey != take || d.trees.isEmpty()){
+        return d;
+      }
+      removed.addAll(d.trees);
+      d.trees.clear();
+      return release(d);
+    });
+    for(final Tree t:removed){
+      t.forget(path);
+    }
+  }
+
+  private void addFile(final Listener c,final Path path) throws IOException{
+    try{
+      files.compute(path, (p,k)->{
+        if(k == null){
+          directories.compute(p.getParent(), (dir,d)->{
+            d = register(dir, d);
+            d.files++;
+            return d;
+          });
+          k = new Key(p, WatchType.FILE);
+        }
+        k.add(c);
+        return k;
+      });
+    }catch(final UncheckedIOException e){
+      throw e.getCause();
+    }
+    updateSnapshot(directories.get(path.getParent()), path);
+  }
+
+  private void addDirectory(final Listener c,final Path path) throws IOException{
+    try{
+      directories.compute(path, (dir,d)->{
+        d = register(dir, d);
+        if(d.key == null){
+          d.key = new Key(dir, WatchType.DIRECTORY);
+        }
+        d.key.add(c);
+        return d;
+      });
+    }catch(final UncheckedIOException e){
+      throw e.getCause();
+    }
+    updateSnapshot(directories.get(path), null);
+  }
+
+  private void addTree(final Listener c,final Path path) throws IOException{
+    while(true){
+      if(trees.computeIfPresent(path, (root,t)->{
+        t.key.add(c);
+        return t;
+      }) != null){
+        return;
+      }
+      //登録には時間がかかるので、treesの外で登録してから追加する
+      final Tree t = new Tree(path);
+      t.key.add(c);
+      try{
+        registerTree(t, path, null);
+      }catch(final IOException e){
+        unregisterTree(t);
+        throw e;
+      }
+      if(trees.putIfAbsent(path, t) == null){
+        return;
+      }
+      //他のスレッドが先に追加した
+      unregisterTree(t);
+    }
+  }
+
+  /**
+   * 作成されたディレクトリdirをgetDefaultExecutor()でtreeに登録し、
+   * 登録前に作られていたファイルの作成イベントを通知します。
+   */
+  private void registerTreeLater(final Tree tree,final Path dir){
+    getDefaultExecutor().execute(()->{
+      final List<FileWatchEvent> created = new ArrayList<>();
+      try{
+        registerTree(tree, dir, created);
+      }catch(final IOException e){
+        //登録する前に削除された
+      }
+      if(!created.isEmpty()){
+        tree.key.fireEvent(new TreeWatchEvent(this, tree.root, created));
+      }
+    });
+  }
+
+  /**
+   * start以下のディレクトリをtreeに登録します。サブディレクトリ毎にForkJoinPoolで並列に登録します。<br/>
+   * 各ディレクトリは中身を読む前に登録するので、読んだ後に作られたファイルはイベントで届きます。
+   * 読んでいる間に作られたファイルは、作成イベントが重複することがあります。
+   * 読んだ中身は、そのままディレクトリのSnapshotにします。
+   * @param created start以下で見つけたファイルとディレクトリの作成イベントを追加するリスト。nullの場合は追加しません
+   * @throws IOException startを登録できなかった場合
+   */
+  private void registerTree(final Tree tree,final Path start,final List<FileWatchEvent> created) throws IOException{
+    final Queue<FileWatchEvent> events = created==null? null: new ConcurrentLinkedQueue<>();
+    try{
+      ForkJoinPool.commonPool().invoke(new RegisterTask(tree, start, true, events));
+    }catch(final UncheckedIOException e){
+      throw e.getCause();
+    }
+    if(created != null){
+      created.addAll(events);
+    }
+  }
+
+  /**
+   * dirを登録してから中身を読み、サブディレクトリを並列に登録します。
+   */
+  private final class RegisterTask extends RecursiveAction{
+    private static final long serialVersionUID = 1L;
+    private final Tree tree;
+    private final Path dir;
+    private final boolean root;
+    private final Queue<FileWatchEvent> created;
+
+    private RegisterTask(final Tree tree,final Path dir,final boolean root,final Queue<FileWatchEvent> created){
+      this.tree = tree;
+      this.dir = dir;
+      this.root = root;
+      this.created = created;
+    }
+
+    @Override
+    protected void compute(){
+      final Directory d;
+      try{
+        d = tree.add(dir);
+      }catch(final UncheckedIOException e){
+        if(root){
+          throw e;
+        }
+        //途中で削除されたディレクトリなどは無視する
+        return;
+      }
+      if(d == null){
+        //既に監視をやめている
+        return;
+      }
+      final Snapshot s = new Snapshot(true);
+      final List<RegisterTask> tasks = new ArrayList<>();
+      try(DirectoryStream<Path> ds = newDirectoryStream(dir)){
+        for(final Path p:ds){
+          final BasicFileAttributes a;
+          try{
+            a = readAttributes(p, BasicFileAttributes.class, NOFOLLOW_LINKS);
+          }catch(final IOException e){
+            continue;
+          }
+          s.put(p.getFileName(), a);
+          if(created != null){
+            created.add(new FileWatchEvent(FileWatcher.this, p, ENTRY_CREATE));
+          }
+          if(a.isDirectory()){
+            tasks.add(new RegisterTask(tree, p, false, created));
+          }
+        }
+      }catch(final IOException|DirectoryIteratorException e){
+        //読めなかった場合は、次に必要になったときに読み直す
+        return;
+      }
+      final Snapshot old = d.snapshot;
+      if(old == null || !old.isFull()){
+        d.snapshot = s;
+      }
+      invokeAll(tasks);
+    }
+  }
+
+  private void unregisterTree(final Tree tree){
+    for(final Path dir:tree.close()){
+      directories.computeIfPresent(dir, (x,d)->{
+        d.trees.remove(tree);
+        return release(d);
+      });
+    }
+  }
+
+  private void removeTree(final Consumer<PathWatchEvent> c,final Path path){
+    final Tree[] removed = {null};
+    trees.computeIfPresent(path, (root,t)->{
+      t.key.remove(c);
+      if(!t.key.isEmpty()){
+        return t;
+      }
+      removed[0] = t;
+      return null;
+    });
+    if(removed[0] != null){
+      unregisterTree(removed[0]);
+    }
+  }
+
+  private void removeFile(final Consumer<PathWatchEvent> c,final Path path){
+    files.computeIfPresent(path, (p,k)->{
+      k.remove(c);
+      if(!k.isEmpty()){
+        return k;
+      }
+      directories.computeIfPresent(p.getParent(), (dir,d)->{
+        d.files--;
+        return release(d);
+      });
+      return null;
+    });
+  }
+
+  private void removeDirectory(final Consumer<PathWatchEvent> c,final Path path){
+    directories.computeIfPresent(path, (dir,d)->{
+      if(d.key == null){
+        return d;
+      }
+      d.key.remove(c);
+      if(d.key.isEmpty()){
+        d.key = null;
+      }
+      return release(d);
+    });
+  }
+
+  /**
+   * dirをWatchServiceに登録します。directoriesのcomputeの中で呼び出してください。
+   * @param d 登録されているDirectory。無い場合はnull
+   * @throws UncheckedIOException 登録に失敗した場合
+   */
+  private Directory register(final Path dir,Directory d){
+    try{
+      if(d == null){
+        d = new Directory(dir, dir.register(watcher, KINDS));
+      }else if(!d.watchKey.isValid()){
+        d.watchKey = dir.register(watcher, KINDS);
+        d.snapshot = null;
+      }
+    }catch(final IOException e){
+      throw new UncheckedIOException(e);
+    }
+    return d;
+  }
+
+  /**
+   * registerの後に、dのSnapshotを作成、または更新します。directoriesのcomputeの外で呼び出してください。<br/>
+   * WatchServiceに登録した後に読むので、読んでいる間の変更はイベントで届きます。
+   * @param d nullの場合は何もしません
+   * @param file 監視を始めたファイル。ディレクトリやTreeの場合はnull
+   */
+  private void updateSnapshot(final Directory d,final Path file){
+    if(d == null){
+      return;
+    }
+    final Snapshot s = d.snapshot;
+    if(s == null || !s.isFull() && d.isFull()){
+      d.snapshot = scan(d);
+    }else if(file != null && !s.isFull()){
+      s.update(d.path, file.getFileName());
+    }
+  }
+
+  /**
+   * dの直下を読みます。ファイルの監視だけに使っているディレクトリは、監視しているファイルだけを読みます。
+   */
+  private Snapshot scan(final Directory d){
+    if(d.isFull()){
+      return Snapshot.scan(d.path);
+    }
+    final List<Path> names = new ArrayList<>();
+    if(d.files != 0){
+      for(final Path p:files.keySet()){
+        if(d.path.equals(p.getParent())){
+          names.add(p.getFileName());
+        }
+      }
+    }
+    return Snapshot.scan(d.path, names);
+  }
+
+  /**
+   * dの中に監視するものが無くなった場合、WatchServiceから登録を解除します。directoriesのcomputeの中で呼び出してください。
+   * @return 登録を解除した場合はnull
+   */
+  private static Directory release(final Directory d){
+    if(d.isEmpty()){
+      d.watchKey.cancel();
+      return null;
+    }
+    return d;
+  }
+
+  /**
+   * pathを監視します。cはgetDefaultExecutor()のスレッドで呼び出されます。どのスレッドから呼び出してもかまいません。
+   * @param path
+   * @param c
+   */
+  public void watchFile(final Path path,final Consumer<PathWatchEvent> c){
+    watchFile(path, c, null);
+  }
+
+  /**
+   * pathを監視します。どのスレッドから呼び出してもかまいません。
+   * @param path
+   * @param c
+   * @param executor cを呼び出すExecutor。nullの場合はgetDefaultExecutor()
+   */
+  public void watchFile(final Path path,final Consumer<PathWatchEvent> c,final Executor executor){
+    if(path == null || c == null) {
+      return;
+    }
+    if(isDirectory(path)){
+      return;
+    }
+
+    final Path p = path.normalize().toAbsolutePath();
+    final Path dir = p.getParent();
+    if(!exists(dir)){
+      return;
+    }
+
+    try {
+      addFile(new Listener(c, executor), p);
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+
+  /**
+   * pathの直下のファイルの変更を監視します。cはgetDefaultExecutor()のスレッドで呼び出されます。
+   * どのスレッドから呼び出してもかまいません。
+   * @param path
+   * @param c
+   */
+  public void watchDirectory(final Path path,final Consumer<PathWatchEvent> c){
+    watchDirectory(path, c, null);
+  }
+
+  /**
+   * pathの直下のファイルの変更を監視します。どのスレッドから呼び出してもかまいません。
+   * @param path
+   * @param c
+   * @param executor cを呼び出すExecutor。nullの場合はgetDefaultExecutor()
+   */
+  public void watchDirectory(final Path path,final Consumer<PathWatchEvent> c,final Executor executor){
+    if(path == null || c == null) {
+      return;
+    }
+    if(!isDirectory(path)){
+      return;
+    }
+
+    final Path p = path.normalize().toAbsolutePath();
+    try {
+      addDirectory(new Listener(c, executor), p);
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+
+  /**
+   * pathとその下の全てのディレクトリの変更を監視します。cはgetDefaultExecutor()のスレッドで呼び出されます。
+   * どのスレッドから呼び出してもかまいません。
+   * @param path
+   * @param c
+   */
+  public void watchTree(final Path path,final Consumer<PathWatchEvent> c){
+    watchTree(path, c, null);
+  }
+
+  /**
+   * pathとその下の全てのディレクトリの変更を監視します。<br/>
+   * 作成されたディレクトリは自動的に監視に加え、削除されたディレクトリは監視から外します。
+   * 変更はTreeWatchEventにまとめて通知します。シンボリックリンクは辿りません。<br/>
+   * どのスレッドから呼び出してもかまいません。
+   * @param path
+   * @param c
+   * @param executor cを呼び出すExecutor。nullの場合はgetDefaultExecutor()
+   */
+  public void watchTree(final Path path,final Consumer<PathWatchEvent> c,final Executor executor){
+    if(path == null || c == null) {
+      return;
+    }
+    if(!isDirectory(path)){
+      return;
+    }
+
+    final Path p = path.normalize().toAbsolutePath();
+    try {
+      addTree(new Listener(c, executor), p);
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  public void unwatchTree(final Path path,final Consumer<PathWatchEvent> c){
+    if(path == null || c == null) {
+      return;
+    }
+    removeTree(c, path.normalize().toAbsolutePath());
+  }
+
+  public void unwatchFile(final Path path,final Consumer<PathWatchEvent> c){
+    if(path == null || c == null) {
+      return;
+    }
+    removeFile(c, path.normalize().toAbsolutePath());
+  }
+
+  public void unwatchDirectory(final Path path,final Consumer<PathWatchEvent> c){
+    if(path == null || c == null) {
+      return;
+    }
+    removeDirectory(c, path.normalize().toAbsolutePath());
+  }
+
+
+
+
+  protected static class Key{
+    private final Path key;
+    private final WatchType type;
+    private final AtomicReference<Actions> action = new AtomicReference<>(EmptyActions);
+
+    protected Key(final Path key,final WatchType type){
+      this.key = requireNonNull(key,"key");
+      this.type = requireNonNull(type);
+    }
+
+    protected final Path getKey(){
+      return key;
+    }
+
+    protected final WatchType getType(){
+      return type;
+    }
+
+    public void add(final Listener c){action.updateAndGet(a->a.add(c));}
+    public void remove(final Consumer<PathWatchEvent> c){action.updateAndGet(a->a.remove(c));}
+    public boolean isEmpty(){return action.get().isEmpty(); }
+    public void fireEvent(final PathWatchEvent e){action.get().fireEvent(e);}
+  }
+
+  /**
+   * WatchServiceに登録しているディレクトリ。<br/>
+   * ディレクトリ自体の監視(key)と、監視しているディレクトリ直下のファイルの数を保持します。
+   */
+  private static final class Directory{
+    private final Path path;
+    private volatile WatchKey watchKey;
+    private volatile Key key;
+    private volatile int files;
+    /**
+     * このディレクトリを含むTree
+     */
+    private final Set<Tree> trees = new CopyOnWriteArraySet<>();
+    /**
+     * 最後に分かっている直下のファイルの状態。監視のスレッドで更新します。
+     * 登録した直後(まだ読んでいない)はnull
+     */
+    private volatile Snapshot snapshot;
+    private Directory(final Path path,final WatchKey watchKey){
+      this.path = path;
+      this.watchKey = watchKey;
+    }
+    private boolean isEmpty(){
+      return key == null && files == 0 && trees.isEmpty();
+    }
+    /**
+     * @return 直下の全てのファイルを監視している場合true
+     */
+    private boolean isFull(){
+      return key != null || !trees.isEmpty();
+    }
+  }
+
+  /**
+   * ディレクトリ直下のファイルの名前、サイズ、更新日時。OVERFLOWのときに変化を調べるために使います。<br/>
+   * ディレクトリは存在するかどうかだけを比較します。
+   */
+  private static final class Snapshot{
+    private static final long[] DIRECTORY = {-1,-1};
+    private final Map<Path, long[]> entries = new ConcurrentHashMap<>();
+    private final boolean full;
+
+    private Snapshot(final boolean full){
+      this.full = full;
+    }
+
+    /**
+     * @return ディレクトリ直下の全てのファイルを読んだ場合true。falseの場合は一部のファイルだけを持ちます
+     */
+    boolean isFull(){
+      return full;
+    }
+
+    /**
+     * 直下のnamesのファイルだけを読みます。
+     * @param dir
+     * @param names
+     * @return
+     */
+    static Snapshot scan(final Path dir,final Collection<Path> names){
+      final Snapshot s = new Snapshot(false);
+      for(final Path name:names){
+        s.put(name, dir.resolve(name));
+      }
+      return s;
+    }
+
+    /**
+     * @param dir
+     * @return 読めない場合は空のSnapshot
+     */
+    static Snapshot scan(final Path dir){
+      final Snapshot s = new Snapshot(true);
+      try(DirectoryStream<Path> ds = newDirectoryStream(dir)){
+        for(final Path p:ds){
+          s.put(p.getFileName(), p);
+        }
+      }catch(final IOException|DirectoryIteratorException e){
+      }
+      return s;
+    }
+
+    /**
+     * nameのイベントを受け取ったときに、状態を読み直します。
+     */
+    void update(final Path dir,final Path name){
+      put(name, dir.resolve(name));
+    }
+
+    private void put(final Path name,final Path p){
+      try{
+        put(name, readAttributes(p, BasicFileAttributes.class, NOFOLLOW_LINKS));
+      }catch(final IOException e){
+        entries.remove(name);
+      }
+    }
+
+    private void put(final Path name,final BasicFileAttributes a){
+      entries.put(name, a.isDirectory()? DIRECTORY: new long[]{a.size(),a.lastModifiedTime().toMillis()});
+    }
+
+    /**
+     * @param now 新しい状態
+     * @return このSnapshotからnowへの変化を表すイベント
+     */
+    List<WatchEvent<?>> diff(final Snapshot now){
+      final List<WatchEvent<?>> list = new ArrayList<>();
+      for(final Map.Entry<Path, long[]> e:now.entries.entrySet()){
+        final long[] old = entries.get(e.getKey());
+        if(old == null){
+          list.add(new SyntheticEvent(ENTRY_CREATE, e.getKey()));
+        }else if(!Arrays.equals(old, e.getValue())){
+          list.add(new SyntheticEvent(ENTRY_MODIFY, e.getKey()));
+        }
+      }
+      for(final Path name:entries.keySet()){
+        if(!now.entries.containsKey(name)){
+          list.add(new SyntheticEvent(ENTRY_DELETE, name));
+        }
+      }
+      return list;
+    }
+  }
+
+  /**
+   * Snapshotの差分から作ったイベント
+   */
+  private static final class SyntheticEvent implements WatchEvent<Path>{
+    private final Kind<Path> kind;
+    private final Path context;
+    private SyntheticEvent(final Kind<Path> kind,final Path context){
+      this.kind = kind;
+      this.context = context;
+    }
+    @Override public Kind<Path> kind(){return kind;}
+    @Override public int count(){return 1;}
+    @Override public Path context(){return context;}
+  }
+
+  /**
+   * watchTreeで監視しているディレクトリと、その下で登録しているディレクトリ。
+   */
+  private final class Tree{
+    private final Path root;
+    private final Key key;
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    /**
+     * addは並列に行い、closeはaddと排他にする
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean closed = false;
+    private Tree(final Path root){
+      this.root = root;
+      key = new Key(root, WatchType.TREE);
+    }
+
+    /**
+     * dirを登録して、このTreeに加えます。Snapshotは作成しないので、呼び出し側で作成してください。
+     * @return 登録したDirectory。既に監視をやめている場合はnull
+     * @throws UncheckedIOException 登録に失敗した場合
+     */
+    private Directory add(final Path dir){
+      lock.readLock().lock();
+      try{
+        if(closed){
+          return null;
+        }
+        final Directory d = FileWatcher.this.directories.compute(dir, (x,v)->{
+          v = register(x, v);
+          v.trees.add(this);
+          return v;
+        });
+        directories.add(dir);
+        return d;
+      }finally{
+        lock.readLock().unlock();
+      }
+    }
+
+    /**
+     * 登録が解除されたdirを取り除きます。その間に登録し直されていた場合は残します。
+     */
+    private void forget(final Path dir){
+      lock.writeLock().lock();
+      try{
+        final Directory d = FileWatcher.this.directories.get(dir);
+        if(d == null || !d.trees.contains(this)){
+          directories.remove(dir);
+        }
+      }finally{
+        lock.writeLock().unlock();
+      }
+    }
+
+    /**
+     * 監視をやめ、これ以降addできないようにします。
+     * @return 登録していたディレクトリ
+     */
+    private Set<Path> close(){
+      lock.writeLock().lock();
+      try{
+        closed = true;
+        final Set<Path> set = new HashSet<>(directories);
+        directories.clear();
+        return set;
+      }finally{
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+
+  /**
+   * 監視者と、監視者を呼び出すExecutor。<br/>
+   * 同じ監視者には、イベントを発生した順に一つずつ渡します。
+   */
+  protected static final class Listener implements Runnable{
+    private final Consumer<PathWatchEvent> consumer;
+    private final Executor executor;
+    private final Queue<PathWatchEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * @param consumer
+     * @param executor nullの場合はgetDefaultExecutor()
+     */
+    protected Listener(final Consumer<PathWatchEvent> consumer,final Executor executor){
+      this.consumer = requireNonNull(consumer,"consumer");
+      this.executor = executor==null? getDefaultExecutor(): executor;
+    }
+
+    protected final Consumer<PathWatchEvent> getConsumer(){
+      return consumer;
+    }
+
+    protected final Executor getExecutor(){
+      return executor;
+    }
+
+    public void post(final PathWatchEvent e){
+      queue.add(e);
+      schedule();
+    }
+
+    private void schedule(){
+      if(scheduled.compareAndSet(false, true)){
+        try{
+          executor.execute(this);
+        }catch(final RejectedExecutionException e){
+          scheduled.set(false);
+          queue.clear();
+          e.printStackTrace();
+        }
+      }
+    }
+
+    @Override
+    public void run(){
+      PathWatchEvent e;
+      while((e = queue.poll())!=null){
+        try{
+          consumer.accept(e);
+        }catch(final RuntimeException ex){
+          ex.printStackTrace();
+        }
+      }
+      scheduled.set(false);
+      if(!queue.isEmpty()){
+        schedule();
+      }
+    }
+  }
+
+  /**
+   * 監視者のリスト。不変なので、fireEvent中に他のスレッドからadd、removeしてもかまいません。
+   */
+  protected static interface Actions{
+    public Actions add(Listener action);
+    public Actions remove(Consumer<PathWatchEvent> action);
+    public void fireEvent(PathWatchEvent e);
+    default public boolean isEmpty(){return false;}
+  }
+
+  private static final Actions EmptyActions = new Actions(){
+    @Override public Actions add(final Listener action){
+      return action == null? this: new SingleActions(action);
+    }
+    @Override public Actions remove(final Consumer<PathWatchEvent> action){return this;}
+    @Override public void fireEvent(final PathWatchEvent e){}
+    @Override public boolean isEmpty(){return true;}
+  };
+
+  private static final class SingleActions implements Actions{
+    private final Listener c;
+    public SingleActions(final Listener c){
+      this.c = requireNonNull(c,"c");
+    }
+    @Override
+    public Actions add(final Listener action){
+      if(action == null || c.consumer == action.consumer){
+        return this;
+      }
+      return new MultiActions(c, action);
+    }
+
+    @Override
+    public Actions remove(final Consumer<PathWatchEvent> action){
+      if(c.consumer == action){
+        return EmptyActions;
+      }
+      return this;
+    }
+
+    @Override
+    public void fireEvent(final PathWatchEvent e){
+      c.post(e);
+    }
+  }
+
+  private static final class MultiActions implements Actions{
+    private final Listener[] array;
+    public MultiActions(final Listener a,final Listener b){
+      this(new Listener[]{a,b});
+    }
+    private MultiActions(final Listener[] array){
+      this.array = array;
+    }
+
+    private int indexOf(final Consumer<PathWatchEvent> action){
+      for(int i=0;i<array.length;i++){
+        if(array[i].consumer==action){
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public Actions add(final Listener action){
+      if(action == null || indexOf(action.consumer) != -1){
+        return this;
+      }
+      final Listener[] newa = Arrays.copyOf(array, array.length+1);
+      newa[array.length] = action;
+      return new MultiActions(newa);
+    }
+
+    @Override
+    public Actions remove(final Consumer<PathWatchEvent> action){
+      final int index = indexOf(action);
+      if(index == -1){
+        return this;
+      }
+      final Listener[] arr = array;
+      final int size = arr.length-1;
+      if(size == 1){
+        return new SingleActions(arr[1-index]);
+      }
+      final Listener[] newarr = new Listener[size];
+      System.arraycopy(arr, 0, newarr, 0, index);
+      System.arraycopy(arr, index+1, newarr, index, size-index);
+      return new MultiActions(newarr);
+    }
+
+    @Override
+    public void fireEvent(final PathWatchEvent e){
+      for(final Listener c:array){
+        c.post(e);
+      }
+    }
+  }
+
+
+  /**
+   * Executorを指定せずに監視した場合に、監視者を呼び出すExecutor。全てのFileWatcherで共有するデーモンスレッドのプールです。
+   * @return
+   */
+  public static Executor getDefaultExecutor(){
+    return WatchThread.THREAD;
+  }
+
+  private static final class WatchThread{
+    private static final ThreadGroup GROUP=new ThreadGroup("File watch thread");
+    private static final ExecutorService THREAD;
+    static{
+      GROUP.setDaemon(true);
+      final ExecutorService e = Executors.newCachedThreadPool(r->{
+        final Thread t = new Thread(GROUP, r);
+        t.setDaemon(true);
+        return t;
+      });
+      THREAD=e;
+    }
+  }
+
+  public static FileWatcher getDefault(){
+    return A.watcher;
+  }
+
+  private static class A{
+    static final FileWatcher watcher;
+    static{
+      FileWatcher w = null;
+      try {
+        w = new FileWatcher();
+      } catch (final IOException e) {
+      }
+      watcher = w;
+    }
+  }
+
+
+}
@@ -1,6 +1,6 @@
-package nodamushi.util;
-
-@FunctionalInterface
-public interface ThrowableRunnable{
-  public void unsafeRun()throws Throwable;
-}
+package nodamushi.util;
+
+@FunctionalInterface
+public interface ThrowableRunnable{
+  public void unsafeRun()throws Throwable;
+}
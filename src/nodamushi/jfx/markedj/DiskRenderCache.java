@@ -0,0 +1,185 @@
+package nodamushi.jfx.markedj;
+
+import static java.util.Objects.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import nodamushi.nio.FileFingerprint;
+
+/**
+ * レンダリングしたHTMLをgzipで圧縮してディレクトリに保存するキャッシュ。<br/>
+ * ファイルのパス、内容のハッシュ値、レンダリングの設定から求めたSHA-1をファイル名にします。<br/>
+ * 保存したファイルの合計サイズがcapacityを超えた場合は、最後に使われた日時(更新日時)が古いものから削除します。
+ * 書き込みと削除は専用のスレッドで行います。
+ * @author nodamushi
+ *
+ */
+public class DiskRenderCache{
+
+  private static final String SUFFIX = ".html.gz";
+
+  private static volatile DiskRenderCache defaultCache = null;
+
+  /**
+   * @return 設定されていない場合はnull
+   */
+  public static DiskRenderCache getDefault(){
+    return defaultCache;
+  }
+
+  public static void setDefault(final DiskRenderCache cache){
+    defaultCache = cache;
+  }
+
+  private final Path directory;
+  private volatile long capacity;
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(r->{
+    final Thread t = new Thread(r, "markdown disk cache");
+    t.setDaemon(true);
+    return t;
+  });
+
+  /**
+   * @param directory 保存先のディレクトリ
+   * @param capacity 保存するファイルの合計サイズの上限(バイト)
+   */
+  public DiskRenderCache(final Path directory,final long capacity){
+    this.directory = requireNonNull(directory,"directory").toAbsolutePath().normalize();
+    this.capacity = capacity;
+  }
+
+  public Path getDirectory(){
+    return directory;
+  }
+
+  public long getCapacity(){
+    return capacity;
+  }
+
+  public void setCapacity(final long capacity){
+    this.capacity = capacity;
+  }
+
+  /**
+   * @param path レンダリングしたファイル
+   * @param settings レンダリング結果に影響する設定
+   * @param f ファイルの内容
+   * @return 保存されていない場合はnull
+   */
+  public String get(final Path path,final String settings,final FileFingerprint f){
+    final Path p = getCacheFile(path, settings, f);
+    if(!Files.isReadable(p)){
+      return null;
+    }
+    try(InputStream in = new GZIPInputStream(Files.newInputStream(p))){
+      final byte[] buf = new byte[8192];
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      int read;
+      while((read = in.read(buf))!=-1){
+        out.write(buf, 0, read);
+      }
+      final String code = new String(out.toByteArray(), StandardCharsets.UTF_8);
+      writer.execute(()->touch(p));
+      return code;
+    }catch(final IOException e){
+      return null;
+    }
+  }
+
+  /**
+   * 別のスレッドでHTMLを保存します。
+   * @param path レンダリングしたファイル
+   * @param settings レンダリング結果に影響する設定
+   * @param f ファイルの内容
+   * @param code HTML
+   */
+  public void put(final Path path,final String settings,final FileFingerprint f,final String code){
+    final Path p = getCacheFile(path, settings, f);
+    writer.execute(()->{
+      try{
+        Files.createDirectories(directory);
+        final Path tmp = Files.createTempFile(directory, "tmp", ".part");
+        boolean moved = false;
+        try{
+          try(OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))){
+            out.write(code.getBytes(StandardCharsets.UTF_8));
+          }
+          Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          moved = true;
+        }finally{
+          //pruneは*.html.gzしか消さないので、失敗した一時ファイルはここで消す
+          if(!moved){
+            Files.deleteIfExists(tmp);
+          }
+        }
+        prune();
+      }catch(final IOException e){
+        e.printStackTrace();
+      }
+    });
+  }
+
+  private static void touch(final Path p){
+    try {
+      Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (final IOException e) {
+    }
+  }
+
+  /**
+   * 合計サイズがcapacity以下になるまで、古いファイルから削除します。
+   */
+  private void prune() throws IOException{
+    final List<Path> files = new ArrayList<>();
+    final List<BasicFileAttributes> attrs = new ArrayList<>();
+    long total = 0;
+    try(DirectoryStream<Path> ds = Files.newDirectoryStream(directory, "*"+SUFFIX)){
+      for(final Path p:ds){
+        final BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+        files.add(p);
+        attrs.add(a);
+        total += a.size();
+      }
+    }
+    if(total <= capacity){
+      return;
+    }
+    final Integer[] order = new Integer[files.size()];
+    for(int i=0;i<order.length;i++){
+      order[i] = i;
+    }
+    Arrays.sort(order, (a,b)->attrs.get(a).lastModifiedTime().compareTo(attrs.get(b).lastModifiedTime()));
+    for(final int i:order){
+      if(total <= capacity){
+        break;
+      }
+      try{
+        Files.deleteIfExists(files.get(i));
+        total -= attrs.get(i).size();
+      }catch(final IOException e){
+      }
+    }
+  }
+
+  private Path getCacheFile(final Path path,final String settings,final FileFingerprint f){
+    final String key = path.toAbsolutePath().normalize()+"\n"+settings+"\n"+f.getSize()+":"+f.getHash();
+    return directory.resolve(FileFingerprint.sha1(key)+SUFFIX);
+  }
+}
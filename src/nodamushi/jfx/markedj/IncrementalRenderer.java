@@ -0,0 +1,138 @@
+package nodamushi.jfx.markedj;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 前回のレンダリング結果をブロック毎に保持し、変更されたブロックだけをレンダリングするクラス。<br/>
+ * ブロックのソースをキーにHTMLを保持します。リンク定義を追加せずにレンダリングしたブロック(閉じていないコードブロック)は区別します。
+ * リンク定義かエンジンが変わった場合は、全てのブロックをレンダリングし直します。<br/>
+ * 出力するHTMLの各ブロックの前には、BLOCK_MARKERで始まるコメント(&lt;!--md-block:キー--&gt;)を挿入します。
+ * キーはブロックのソースのハッシュ値で、同じ内容のブロックが複数ある場合は".番号"を付けます。
+ * @author nodamushi
+ *
+ */
+public class IncrementalRenderer{
+
+  public static final String BLOCK_MARKER = "<!--md-block:";
+  private static final String UNLINKED = "\u0000unlinked";
+
+  private Map<String, String> cache = new HashMap<>();
+  private String definitions = "";
+  private MarkdownEngine engine;
+
+  /**
+   * 最初に途中経過を通知するまでにレンダリングするソースの文字数。2回目以降は倍々にしていきます。
+   */
+  public static final int FIRST_PROGRESS_SIZE = 16*1024;
+
+  public String render(final String source,final MarkdownEngine o){
+    return render(source, o, null);
+  }
+
+  /**
+   * @param source
+   * @param o
+   * @param progress 途中までのHTMLを受け取る。falseを返した場合はレンダリングを中止します。nullの場合は通知しません。
+   * @return 中止した場合はnull
+   */
+  public synchronized String render(final String source,final MarkdownEngine o,final Predicate<String> progress){
+    final MarkdownBlocks blocks = MarkdownBlocks.parse(source);
+    if(!o.equals(engine) || !blocks.getDefinitions().equals(definitions)){
+      cache.clear();
+      engine = o;
+      definitions = blocks.getDefinitions();
+    }
+
+    final List<String> list = blocks.getBlocks();
+    final Map<String, String> next = new HashMap<>(list.size()*2);
+    final Map<String, Integer> keys = new HashMap<>(list.size()*2);
+    if(progress == null){
+      renderMissing(blocks, next);
+    }
+    //エンジンのインスタンスではなく設定から求め、実行する度やディスクのキャッシュから読み込んだHTMLでも同じキーにする
+    final long seed = MarkdownBlocks.hash(definitions)*31+MarkdownBlocks.hash(o.getSettingsKey());
+    final StringBuilder sb = new StringBuilder(source.length()+(source.length()>>1));
+    long rendered = 0;
+    long nextProgress = FIRST_PROGRESS_SIZE;
+    for(int i=0,s=list.size();i<s;i++){
+      final String b = list.get(i);
+      final String c = getCacheKey(blocks, i);
+      if(progress != null && rendered >= nextProgress){
+        if(!progress.test(sb.toString())){
+          cache.putAll(next);
+          return null;
+        }
+        nextProgress = rendered*2;
+      }
+      rendered += b.length();
+      String html = next.get(c);
+      if(html == null){
+        html = cache.get(c);
+        if(html == null){
+          html = o.render(blocks.getSource(i));
+        }
+        next.put(c, html);
+      }
+      String key = Long.toHexString(MarkdownBlocks.hash(b)^seed);
+      final Integer count = keys.get(key);
+      keys.put(key, count==null? 1: count+1);
+      if(count!=null){
+        key = key+"."+count;
+      }
+      sb.append(BLOCK_MARKER).append(key).append("-->\n").append(html).append('\n');
+    }
+    cache = next;
+    return sb.toString();
+  }
+
+  /**
+   * キャッシュに無いブロックの合計が大きい場合は、ParallelRendererで並列にレンダリングしてnextに入れます。
+   */
+  private void renderMissing(final MarkdownBlocks blocks,final Map<String, String> next){
+    final List<String> list = blocks.getBlocks();
+    final List<Integer> missing = new ArrayList<>();
+    final Set<String> set = new HashSet<>();
+    int length = 0;
+    for(int i=0,s=list.size();i<s;i++){
+      final String c = getCacheKey(blocks, i);
+      if(!cache.containsKey(c) && set.add(c)){
+        missing.add(i);
+        length += list.get(i).length();
+      }
+    }
+    if(missing.size() < 2 || !ParallelRenderer.isParallel(length)){
+      return;
+    }
+    final String[] sources = new String[missing.size()];
+    for(int i=0;i<sources.length;i++){
+      sources[i] = blocks.getSource(missing.get(i));
+    }
+    final String[] htmls = ParallelRenderer.renderAll(sources, engine);
+    for(int i=0;i<sources.length;i++){
+      next.put(getCacheKey(blocks, missing.get(i)), htmls[i]);
+    }
+  }
+
+  /**
+   * @return index番目のブロックのキャッシュのキー
+   */
+  private static String getCacheKey(final MarkdownBlocks blocks,final int index){
+    final String b = blocks.getBlocks().get(index);
+    if(blocks.getDefinitions().isEmpty() || blocks.isLinked(index) || b.indexOf('[')==-1){
+      return b;
+    }
+    return b+UNLINKED;
+  }
+
+  public synchronized void clear(){
+    cache.clear();
+    engine = null;
+    definitions = "";
+  }
+}
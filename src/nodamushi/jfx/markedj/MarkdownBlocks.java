@@ -0,0 +1,253 @@
+package nodamushi.jfx.markedj;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Markdownのテキストを、それぞれ独立してレンダリングできるトップレベルのブロックに分割します。<br/>
+ * ブロックは空行で区切りますが、コードブロック、リスト、引用、HTMLブロックの途中では区切りません。<br/>
+ * 参照形式のリンク定義([id]: url)はドキュメント全体で有効なので、getDefinitionsでまとめて取得できます。
+ * @author nodamushi
+ *
+ */
+public final class MarkdownBlocks{
+
+  private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+  private static final Pattern LIST = Pattern.compile("^ {0,3}(?:[*+-]|\\d+\\.)[ \t]");
+  private static final Pattern QUOTE = Pattern.compile("^ {0,3}>");
+  private static final Pattern DEFINITION = Pattern.compile("^ {0,3}\\[[^\\]]+\\]: *<?[^\\s>]+>?(?: +[\"(][^\\n]+[\")])? *$");
+  private static final Pattern ATX_HEADING = Pattern.compile("^ {0,3}#{1,6}(?:[ \t]|$)");
+  private static final Pattern SETEXT_UNDERLINE = Pattern.compile("^ {0,3}(?:=+|-+)[ \t]*$");
+  private static final Pattern HTML = Pattern.compile("^ {0,3}<([a-zA-Z][a-zA-Z0-9-]*)");
+  private static final String[] VOID_TAGS = {
+      "area","base","br","col","embed","hr","img","input","link","meta","param","source","track","wbr"
+  };
+
+  private final List<String> blocks;
+  private final String definitions;
+  private final boolean openFence;
+
+  private MarkdownBlocks(final List<String> blocks,final String definitions,final boolean openFence){
+    this.blocks = Collections.unmodifiableList(blocks);
+    this.definitions = definitions;
+    this.openFence = openFence;
+  }
+
+  public List<String> getBlocks(){
+    return blocks;
+  }
+
+  /**
+   * @return 参照形式のリンク定義を改行で連結したもの。無い場合は空文字
+   */
+  public String getDefinitions(){
+    return definitions;
+  }
+
+  /**
+   * ブロックを単独でレンダリングするためのテキストを返します。<br/>
+   * リンクを含む可能性があるブロックには、リンク定義を後ろに追加します。
+   * @param index
+   * @return
+   */
+  public String getSource(final int index){
+    final String b = blocks.get(index);
+    return isLinked(index)? b+"\n\n"+definitions: b;
+  }
+
+  /**
+   * @param index
+   * @return getSource(index)がリンク定義を追加する場合はtrue
+   */
+  public boolean isLinked(final int index){
+    return !definitions.isEmpty() && blocks.get(index).indexOf('[')!=-1 &&
+        !(openFence && index == blocks.size()-1);
+  }
+
+  /**
+   * from番目からto-1番目までのブロックをまとめてレンダリングするためのテキストを返します。
+   * @param from
+   * @param to
+   * @return
+   * @see #getSource(int)
+   */
+  public String getSource(final int from,final int to){
+    final StringBuilder sb = new StringBuilder();
+    boolean link = false;
+    for(int i=from;i<to;i++){
+      final String b = blocks.get(i);
+      if(i!=from){
+        sb.append("\n\n");
+      }
+      sb.append(b);
+      link |= b.indexOf('[')!=-1;
+    }
+    if(!definitions.isEmpty() && link && !(openFence && to == blocks.size())){
+      sb.append("\n\n").append(definitions);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * ブロックが見出しで始まっているかどうか
+   * @param index
+   * @return
+   */
+  public boolean isHeading(final int index){
+    final String b = blocks.get(index);
+    if(ATX_HEADING.matcher(b).find()){
+      return true;
+    }
+    final int n = b.indexOf('\n');
+    if(n == -1){
+      return false;
+    }
+    int e = b.indexOf('\n', n+1);
+    if(e == -1){
+      e = b.length();
+    }
+    //リストやコードブロックの中の"---"は見出しではない
+    return !b.substring(0, n).trim().isEmpty() && SETEXT_UNDERLINE.matcher(b.substring(n+1, e).trim()).matches()
+        && !FENCE.matcher(b).find() && !LIST.matcher(b).find();
+  }
+
+
+  public static MarkdownBlocks parse(final String source){
+    final List<String> blocks = new ArrayList<>();
+    final StringBuilder defs = new StringBuilder();
+    final int length = source.length();
+
+    int blockStart = 0;
+    int blankStart = -1;//ブロックの後ろに続く空行の開始位置
+    boolean hasList = false,hasQuote = false;
+    char fenceChar = 0;
+    int fenceLength = 0;
+    String htmlTag = null;
+
+    int index = 0;
+    while(index < length){
+      int end = index;
+      while(end < length && source.charAt(end)!='\n' && source.charAt(end)!='\r'){
+        end++;
+      }
+      int next = end;
+      if(next < length){
+        if(source.charAt(next)=='\r' && next+1 < length && source.charAt(next+1)=='\n'){
+          next++;
+        }
+        next++;
+      }
+      final String line = source.substring(index, end);
+
+      if(fenceChar != 0){
+        final Matcher m = FENCE.matcher(line);
+        if(m.find() && m.group(1).charAt(0)==fenceChar && m.group(1).length() >= fenceLength
+            && line.substring(m.end()).trim().isEmpty()){
+          fenceChar = 0;
+        }
+      }else if(htmlTag != null){
+        if(line.toLowerCase().contains(htmlTag)){
+          htmlTag = null;
+        }
+      }else if(line.trim().isEmpty()){
+        if(blankStart == -1){
+          blankStart = index;
+        }
+      }else{
+        if(blankStart != -1){
+          if(canSplit(line, hasList, hasQuote)){
+            blocks.add(source.substring(blockStart, blankStart));
+            blockStart = index;
+            hasList = hasQuote = false;
+          }
+          blankStart = -1;
+        }
+        final boolean first = blockStart == index;
+        final Matcher fence = FENCE.matcher(line);
+        if(fence.find()){
+          fenceChar = fence.group(1).charAt(0);
+          fenceLength = fence.group(1).length();
+        }else if(first){
+          htmlTag = getCloseTag(line);
+        }
+        if(DEFINITION.matcher(line).matches()){
+          if(defs.length()!=0){
+            defs.append('\n');
+          }
+          defs.append(line);
+        }
+        hasList |= LIST.matcher(line).find();
+        hasQuote |= QUOTE.matcher(line).find();
+      }
+      index = next;
+    }
+
+    final int last = blankStart == -1? length: blankStart;
+    if(blockStart < last){
+      blocks.add(source.substring(blockStart, last));
+    }
+    return new MarkdownBlocks(blocks, defs.toString(), fenceChar != 0);
+  }
+
+  /**
+   * 空行の次のlineから新しいブロックを始めても良いかどうか。
+   */
+  private static boolean canSplit(final String line,final boolean hasList,final boolean hasQuote){
+    final char c = line.charAt(0);
+    if(c == ' ' || c == '\t'){
+      //インデントされたコードか、リストの続き
+      return false;
+    }
+    if(hasList && LIST.matcher(line).find()){
+      return false;
+    }
+    if(hasQuote && QUOTE.matcher(line).find()){
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * HTMLブロックの開始行であれば、ブロックの終わりを示す文字列を返します。
+   * 1行で閉じている場合はnull。
+   */
+  private static String getCloseTag(final String line){
+    final String t = line.trim();
+    if(t.startsWith("<!--")){
+      return t.contains("-->")? null: "-->";
+    }
+    final Matcher m = HTML.matcher(line);
+    if(!m.find()){
+      return null;
+    }
+    final String tag = m.group(1).toLowerCase();
+    for(final String v:VOID_TAGS){
+      if(v.equals(tag)){
+        return null;
+      }
+    }
+    final String close = "</"+tag;
+    return t.toLowerCase().contains(close)? null: close;
+  }
+
+  /**
+   * 64bitのFNV-1aハッシュ値を計算します。
+   * @param s
+   * @return
+   */
+  public static long hash(final CharSequence s){
+    long h = 0xcbf29ce484222325L;
+    final int l = s.length();
+    for(int i=0;i<l;i++){
+      final char c = s.charAt(i);
+      h ^= c & 0xff;
+      h *= 0x100000001b3L;
+      h ^= c >>> 8;
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+}
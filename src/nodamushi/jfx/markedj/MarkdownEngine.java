@@ -0,0 +1,75 @@
+package nodamushi.jfx.markedj;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * MarkdownをHTMLに変換するエンジン。<br/>
+ * 実装クラスをMETA-INF/services/nodamushi.jfx.markedj.MarkdownEngineに記述すると、
+ * ServiceLoaderで見つけられるようになり、名前(getName)で選択できます。<br/>
+ * renderは複数のスレッドから同時に呼ばれることがあります。
+ * @author nodamushi
+ * @see MarkedjEngine
+ */
+public interface MarkdownEngine{
+
+  /**
+   * @return エンジンを選択するときの名前
+   */
+  String getName();
+
+  /**
+   * @return エンジンのバージョン。レンダリング結果が変わる場合は別の値を返してください。
+   */
+  String getVersion();
+
+  /**
+   * MarkdownをHTMLに変換します。
+   * @param markdown
+   * @return
+   */
+  String render(String markdown);
+
+  /**
+   * ディスクにキャッシュしたレンダリング結果を使えるかどうかを判定するための文字列。<br/>
+   * レンダリング結果に影響する設定がある場合は、その値を含めてください。
+   * @return
+   */
+  default String getSettingsKey(){
+    return getName()+":"+getVersion();
+  }
+
+  /**
+   * ServiceLoaderで登録されているエンジンからnameのエンジンを探します。<br/>
+   * 読み込めない実装がクラスパスにあった場合は、その実装を飛ばして探します。
+   * @param name
+   * @return 見つからない場合はnull
+   */
+  static MarkdownEngine find(final String name){
+    if(MarkedjEngine.NAME.equals(name)){
+      return new MarkedjEngine();
+    }
+    final Iterator<MarkdownEngine> it = ServiceLoader.load(MarkdownEngine.class).iterator();
+    //META-INF/servicesを読めない場合などは同じエラーが続くので、回数を制限する
+    int errors = 0;
+    while(true){
+      final MarkdownEngine e;
+      try{
+        if(!it.hasNext()){
+          return null;
+        }
+        e = it.next();
+      }catch(final ServiceConfigurationError ex){
+        ex.printStackTrace();
+        if(++errors == 16){
+          return null;
+        }
+        continue;
+      }
+      if(e.getName().equals(name)){
+        return e;
+      }
+    }
+  }
+}
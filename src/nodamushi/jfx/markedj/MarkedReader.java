@@ -1,144 +1,465 @@
-package nodamushi.jfx.markedj;
-
-import static java.util.Objects.*;
-
-import java.io.IOException;
-import java.lang.ref.WeakReference;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.security.cert.PKIXRevocationChecker.Option;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
-
-import io.github.gitbucket.markedj.Marked;
-import io.github.gitbucket.markedj.Options;
-import javafx.application.Platform;
-import javafx.beans.property.ReadOnlyStringProperty;
-import javafx.beans.property.ReadOnlyStringWrapper;
-import nodamushi.nio.FileUtil;
-import nodamushi.nio.FileWatcher;
-import nodamushi.nio.FileWatcher.PathWatchEvent;
-
-public class MarkedReader{
-
-  private static class WeakConsumer implements Consumer<PathWatchEvent>{
-
-    private final WeakReference<MarkedReader> reader;
-    private Path path;
-
-    public WeakConsumer(final MarkedReader r){
-      reader = new WeakReference<>(r);
-      path = r.file;
-    }
-
-
-    @Override
-    public void accept(final PathWatchEvent t){
-      final MarkedReader r = reader.get();
-      if(r==null){
-        t.getWatcher().unwatchFile(path, this);
-      }else{
-        r.parse();
-      }
-
-    }
-
-  }
-
-  public static final Options DEFAULT_OPTIONS=new Options();
-
-
-  static{
-    DEFAULT_OPTIONS.setLangPrefix("");
-  }
-  private volatile boolean initialized = false;
-  private final Path file;
-  private final AtomicReference<WeakConsumer> ref;
-  private volatile Options options = null;
-
-  public MarkedReader(final Path file){
-    this.file =requireNonNull(file,"file");
-    ref = new AtomicReference<>(null);
-  }
-
-  public Path getDirectory(){
-    return file.getParent();
-  }
-
-  public Path getFile(){
-    return file;
-  }
-
-  public void watchFile(){
-    final WeakConsumer c = new WeakConsumer(this);
-    if(ref.compareAndSet(null, c)){
-      FileWatcher.getDefault().watchFile(file, c);
-      if(!initialized){
-        parse();
-      }
-    }
-  }
-
-  public void setOptions(final Options option){
-    options = option;
-    if(initialized && ref.get()!=null){
-      parse();
-    }
-  }
-
-  public void unwatchFile(){
-    if(ref.get()!=null){
-      FileWatcher.getDefault().unwatchFile(file, ref.get());
-      ref.set(null);
-    }
-  }
-
-
-  public void parse(){
-    final String code;
-    try {
-      if(Files.isReadable(file)){
-        final Options o = options==null?DEFAULT_OPTIONS:options;
-        code = Marked.marked(FileUtil.readText(file),o);
-      }else{
-        code = null;
-      }
-    } catch (final IOException e) {
-      e.printStackTrace();
-      return;
-    }
-    if(code!=null){
-      initialized=true;
-      if(Platform.isFxApplicationThread()){
-        setCode(code);
-      }else{
-        Platform.runLater(()->setCode(code));
-      }
-    }
-  }
-
-
-
-  /**
-   *
-   * @return
-   */
-  public final ReadOnlyStringProperty codeProperty(){
-    return codeWrapper().getReadOnlyProperty();
-  }
-
-  public final String getCode(){
-    return codeWrapper.get();
-  }
-
-  protected final void setCode(final String value){
-    codeWrapper().set(value);
-  }
-
-  protected final ReadOnlyStringWrapper codeWrapper(){
-    return codeWrapper;
-  }
-
-  private final ReadOnlyStringWrapper codeWrapper = new ReadOnlyStringWrapper(this, "code", "");
-
-}
+package nodamushi.jfx.markedj;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.cert.PKIXRevocationChecker.Option;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import io.github.gitbucket.markedj.Options;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import nodamushi.nio.FileFingerprint;
+import nodamushi.nio.FileUtil;
+import nodamushi.nio.FileWatcher;
+import nodamushi.nio.FileWatcher.PathWatchEvent;
+
+public class MarkedReader{
+
+  private static class WeakConsumer implements Consumer<PathWatchEvent>{
+
+    private final WeakReference<MarkedReader> reader;
+    private Path path;
+
+    public WeakConsumer(final MarkedReader r){
+      reader = new WeakReference<>(r);
+      path = r.file;
+    }
+
+
+    @Override
+    public void accept(final PathWatchEvent t){
+      final MarkedReader r = reader.get();
+      if(r==null){
+        t.getWatcher().unwatchFile(path, this);
+      }else{
+        r.requestParse();
+      }
+
+    }
+
+  }
+
+  public static final Options DEFAULT_OPTIONS=new Options();
+
+
+  static{
+    DEFAULT_OPTIONS.setLangPrefix("");
+  }
+
+  private static volatile MarkdownEngine defaultEngine = new MarkedjEngine(DEFAULT_OPTIONS);
+
+  /**
+   * エンジンが設定されていないMarkedReaderが使うMarkdownEngineを設定します。
+   * @param engine nullの場合はDEFAULT_OPTIONSを使うMarkedjEngine
+   */
+  public static void setDefaultEngine(final MarkdownEngine engine){
+    defaultEngine = engine==null? new MarkedjEngine(DEFAULT_OPTIONS): engine;
+  }
+
+  public static MarkdownEngine getDefaultEngine(){
+    return defaultEngine;
+  }
+
+  private static volatile int renderThreads = 0;
+
+  /**
+   * parseLaterで使うスレッド数を設定します。<br/>
+   * 最初にparseLaterが呼ばれる前に設定してください。0以下の場合はCPUのコア数になります。
+   * @param threads
+   */
+  public static void setRenderThreads(final int threads){
+    renderThreads = threads;
+  }
+
+  public static int getRenderThreads(){
+    final int t = renderThreads;
+    return t > 0? t: Runtime.getRuntime().availableProcessors();
+  }
+
+  private static volatile long defaultParseDelay = 100;
+
+  /**
+   * ファイルの変更を検知してからparseするまでの待ち時間(ミリ秒)の初期値を設定します。<br/>
+   * 待ち時間内に再び変更があった場合は、待ち時間をやり直します。0以下の場合は待ちません。
+   * @param millis
+   */
+  public static void setDefaultParseDelay(final long millis){
+    defaultParseDelay = millis;
+  }
+
+  public static long getDefaultParseDelay(){
+    return defaultParseDelay;
+  }
+
+  private static volatile boolean incrementalRender = false;
+
+  /**
+   * trueの場合、前回のレンダリング結果を再利用し、変更されたブロックだけをレンダリングします。
+   * @param incremental
+   * @see IncrementalRenderer
+   */
+  public static void setIncrementalRender(final boolean incremental){
+    incrementalRender = incremental;
+  }
+
+  public static boolean isIncrementalRender(){
+    return incrementalRender;
+  }
+
+  private static volatile long streamRenderSize = 0;
+
+  /**
+   * この大きさ(バイト)以上のファイルは、レンダリングが終わったブロックから順にcodeに反映します。<br/>
+   * 途中経過のcodeはブロック毎に区切られているので、MarkedViewのpatchUpdateと組み合わせると、
+   * 追加されたブロックだけが表示に追加されます。0以下の場合は途中経過を反映しません。
+   * @param size
+   * @see IncrementalRenderer#render(String, MarkdownEngine, java.util.function.Predicate)
+   */
+  public static void setStreamRenderSize(final long size){
+    streamRenderSize = size;
+  }
+
+  public static long getStreamRenderSize(){
+    return streamRenderSize;
+  }
+
+  private static boolean isStreamRender(final long fileSize){
+    final long s = streamRenderSize;
+    return s > 0 && fileSize >= s;
+  }
+
+  private volatile boolean initialized = false;
+  private final Path file;
+  private final AtomicReference<WeakConsumer> ref;
+  private volatile MarkdownEngine engine = null;
+  private volatile long parseDelay = -1;
+  private ScheduledFuture<?> delayed;
+  private Future<?> pending;
+  private volatile FileFingerprint fingerprint = null;
+  private volatile Charset charset = null;
+  private final AtomicLong generation = new AtomicLong();
+  private long appliedGeneration = 0;
+  private final IncrementalRenderer renderer = new IncrementalRenderer();
+
+  public MarkedReader(final Path file){
+    this.file =requireNonNull(file,"file");
+    ref = new AtomicReference<>(null);
+  }
+
+  public Path getDirectory(){
+    return file.getParent();
+  }
+
+  public Path getFile(){
+    return file;
+  }
+
+  public void watchFile(){
+    final WeakConsumer c = new WeakConsumer(this);
+    if(ref.compareAndSet(null, c)){
+      FileWatcher.getDefault().watchFile(file, c);
+      if(!initialized){
+        parseLater();
+      }
+    }
+  }
+
+  /**
+   * markedjのOptionsを設定します。setEngine(new MarkedjEngine(option))と同じです。
+   * @param option nullの場合はデフォルトのエンジンを使います
+   */
+  public void setOptions(final Options option){
+    setEngine(option==null? null: new MarkedjEngine(option));
+  }
+
+  /**
+   * @param engine nullの場合はgetDefaultEngineのエンジンを使います
+   */
+  public void setEngine(final MarkdownEngine engine){
+    this.engine = engine;
+    fingerprint = null;
+    if(initialized && ref.get()!=null){
+      parseLater();
+    }
+  }
+
+  public MarkdownEngine getEngine(){
+    final MarkdownEngine e = engine;
+    return e==null? getDefaultEngine(): e;
+  }
+
+  public void unwatchFile(){
+    if(ref.get()!=null){
+      FileWatcher.getDefault().unwatchFile(file, ref.get());
+      ref.set(null);
+    }
+  }
+
+
+  /**
+   * ファイルの変更を検知してからparseするまでの待ち時間(ミリ秒)を設定します。<br/>
+   * 負の値の場合はgetDefaultParseDelayの値を使います。
+   * @param millis
+   */
+  public void setParseDelay(final long millis){
+    parseDelay = millis;
+  }
+
+  public long getParseDelay(){
+    final long d = parseDelay;
+    return d < 0? getDefaultParseDelay(): d;
+  }
+
+  /**
+   * レンダリング用のスレッドでparseを実行します。
+   * @return
+   */
+  public Future<?> parseLater(){
+    final long g = generation.incrementAndGet();
+    synchronized (this) {
+      if(pending!=null){
+        pending.cancel(false);
+      }
+      return pending = RenderThread.THREAD.submit(()->parse(g));
+    }
+  }
+
+  /**
+   * getParseDelayの時間だけ待ってからparseLaterを実行します。<br/>
+   * 待っている間に再び呼ばれた場合は、前の要求を取り消して待ち直します。
+   */
+  public void requestParse(){
+    final long delay = getParseDelay();
+    if(delay <= 0){
+      parseLater();
+      return;
+    }
+    synchronized (this) {
+      if(delayed!=null){
+        delayed.cancel(false);
+      }
+      delayed = RenderThread.DELAY.schedule(this::parseLater, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * ファイルを読み込んでcodeを更新します。<br/>
+   * 前回parseしたときからファイルの内容が変わっていない場合は何もしません。
+   */
+  public void parse(){
+    parse(generation.incrementAndGet());
+  }
+
+  /**
+   * ファイルを読み込んでHTMLに変換し、そのまま返します。codeやキャッシュは更新しません。<br/>
+   * FXのスレッドを使わないので、JavaFXを起動していなくても呼び出せます。
+   * @return
+   * @throws IOException
+   */
+  public String render()throws IOException{
+    return render(FileUtil.readBytes(file));
+  }
+
+  /**
+   * 既に読み込んだファイルの内容をHTMLに変換します。
+   * @param data ファイルの内容
+   * @return
+   * @see #render()
+   */
+  public String render(final ByteBuffer data){
+    final String text = decode(data);
+    final MarkdownEngine o = getEngine();
+    return ParallelRenderer.isParallel(text.length())? ParallelRenderer.render(text, o): o.render(text);
+  }
+
+  /**
+   * @param g このparseの世代。途中でより新しいparseが要求された場合は、結果を捨てて終了します。
+   */
+  private void parse(final long g){
+    final String code;
+    final FileFingerprint f;
+    try {
+      if(!Files.isReadable(file)){
+        return;
+      }
+      final FileFingerprint last = fingerprint;
+      final BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+      if(last!=null && last.isSameStat(a)){
+        return;
+      }
+      final MarkdownEngine o = getEngine();
+      final boolean stream = isStreamRender(a.size());
+      final boolean blocks = stream || isIncrementalRender();
+      final Object settings = Arrays.asList(o, blocks);
+      final RenderCache cache = RenderCache.getDefault();
+      RenderCache.Entry e = cache.get(file, settings, a);
+      ByteBuffer data = null;
+      if(e!=null){
+        f = e.getFingerprint();
+      }else{
+        data = FileUtil.readBytes(file);
+        f = FileFingerprint.of(a, data);
+      }
+      if(f.equals(last)){
+        fingerprint = f;
+        return;
+      }
+      if(e==null){
+        e = cache.get(file, settings, f);
+      }
+      if(e!=null){
+        code = e.getCode();
+      }else{
+        final DiskRenderCache disk = DiskRenderCache.getDefault();
+        final String diskSettings = disk==null? null: o.getSettingsKey()+",blocks="+blocks;
+        final String cached = disk==null? null: disk.get(file, diskSettings, f);
+        if(cached!=null){
+          code = cached;
+        }else{
+          if(isStale(g)){
+            return;
+          }
+          final String text = decode(data);
+          if(isStale(g)){
+            return;
+          }
+          if(blocks){
+            code = renderer.render(text, o, stream? partial->publish(g, partial): null);
+            if(code==null){
+              return;
+            }
+          }else{
+            code = ParallelRenderer.isParallel(text.length())? ParallelRenderer.render(text, o): o.render(text);
+          }
+          if(disk!=null){
+            disk.put(file, diskSettings, f, code);
+          }
+        }
+        cache.put(file, settings, f, code);
+      }
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return;
+    }
+    synchronized (this) {
+      if(publish(g, code)){
+        fingerprint = f;
+        initialized=true;
+      }
+    }
+  }
+
+  /**
+   * codeをFXのスレッドで反映します。
+   * @return gが古い場合はfalse
+   */
+  private synchronized boolean publish(final long g,final String code){
+    if(isStale(g)){
+      return false;
+    }
+    if(Platform.isFxApplicationThread()){
+      updateCode(g,code);
+    }else{
+      Platform.runLater(()->updateCode(g,code));
+    }
+    return true;
+  }
+
+  /**
+   * 前回判定した文字コードで変換します。変換できなかった場合は文字コードを判定し直します。
+   */
+  private String decode(final ByteBuffer data){
+    if(FileUtil.getBOMCharset(data)!=null){
+      return FileUtil.readText(data, null);
+    }
+    final Charset c = charset;
+    if(c!=null){
+      try{
+        return FileUtil.decode(data, c);
+      }catch(final CharacterCodingException e){
+        charset = null;
+      }
+    }
+    final Charset d = FileUtil.detectCharset(data);
+    charset = d;
+    return FileUtil.readText(data, d==null?Charset.defaultCharset():d);
+  }
+
+  private boolean isStale(final long g){
+    return g != generation.get();
+  }
+
+
+
+  /**
+   *
+   * @return
+   */
+  public final ReadOnlyStringProperty codeProperty(){
+    return codeWrapper().getReadOnlyProperty();
+  }
+
+  public final String getCode(){
+    return codeWrapper.get();
+  }
+
+  protected final void setCode(final String value){
+    codeWrapper().set(value);
+  }
+
+  private void updateCode(final long g,final String value){
+    if(g < appliedGeneration){
+      return;
+    }
+    appliedGeneration = g;
+    if(!value.equals(getCode())){
+      setCode(value);
+    }
+  }
+
+  protected final ReadOnlyStringWrapper codeWrapper(){
+    return codeWrapper;
+  }
+
+  private final ReadOnlyStringWrapper codeWrapper = new ReadOnlyStringWrapper(this, "code", "");
+
+
+  private static final class RenderThread{
+    private static final ThreadGroup GROUP=new ThreadGroup("Markdown render thread");
+    private static final ExecutorService THREAD;
+    private static final ScheduledExecutorService DELAY;
+    static{
+      GROUP.setDaemon(true);
+      final ExecutorService e = Executors.newFixedThreadPool(getRenderThreads(),r->{
+        final Thread t = new Thread(GROUP, r);
+        t.setDaemon(true);
+        return t;
+      });
+      THREAD=e;
+      DELAY = Executors.newSingleThreadScheduledExecutor(r->{
+        final Thread t = new Thread(GROUP, r, "markdown render delay");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+}
@@ -1,245 +1,768 @@
-package nodamushi.jfx.markedj;
-
-
-
-import javafx.beans.InvalidationListener;
-import javafx.beans.Observable;
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.concurrent.Worker.State;
-import javafx.css.PseudoClass;
-import javafx.geometry.HPos;
-import javafx.geometry.VPos;
-import javafx.scene.control.Label;
-import javafx.scene.layout.Region;
-import javafx.scene.web.WebEngine;
-import javafx.scene.web.WebView;
-
-public class MarkedView extends Region{
-
-  public static enum ReloadFramePosition{
-    ORIGIN,
-    FIX_TOP(0,1),FIX_TOP_LEFT(1,1),FIX_TOP_RIGHT(-1,1),
-    FIX_BOTTOM(0,-1),FIX_BOTTOM_LEFT(1,-1),FIX_BOTTOM_RIGHT(-1,-1),
-    FIX_LEFT(1,0),FIX_RIGHT(-1,0)
-
-    ;
-    public final boolean origin;
-    public final boolean fixTop;
-    public final boolean fixBottom;
-    public final boolean fixLeft;
-    public final boolean fixRight;
-    private ReloadFramePosition(){
-      origin=true;
-      fixBottom=fixLeft=fixTop=fixRight=false;
-    }
-    private ReloadFramePosition(final int v,final int h){
-      origin=v==0 && h==0;
-      fixTop = h==1;
-      fixBottom = h==-1;
-      fixLeft = v==1;
-      fixRight=v==-1;
-    }
-
-  }
-  private static PseudoClass EMPTY=PseudoClass.getPseudoClass("empty");
-
-  private WebView view;
-  private WebEngine engine;
-  private Label emptyMessage;
-
-  public MarkedView(){
-    getStyleClass().setAll("md-view");
-    view = new WebView();
-    emptyMessage = new Label("Drag & Drop Markdown file");
-    emptyMessage.getStyleClass().setAll("empty-message");
-    getChildren().addAll(emptyMessage,view);
-    engine = view.getEngine();
-    update(null);
-    pseudoClassStateChanged(EMPTY, true);
-    engine.getLoadWorker().stateProperty().addListener(o->{
-      if(engine.getLoadWorker().getState()==State.SUCCEEDED){
-        setScrollPosition();
-      }
-    });
-  }
-
-  public void reload(){
-    update(null);
-  }
-
-
-  @Override
-  protected void layoutChildren(){
-    layoutInArea(emptyMessage, 0, 0, getWidth(), getHeight(), 0,
-        getInsets(), false, false, HPos.CENTER , VPos.CENTER);
-    layoutInArea(view, 0, 0, getWidth(), getHeight(), 0,
-        getInsets(), true, true, HPos.LEFT , VPos.TOP);
-  }
-  @Override
-  protected double computePrefHeight(final double width){
-    return 600;
-  }
-
-  @Override
-  protected double computePrefWidth(final double height){
-    return 800;
-  }
-
-  public WebEngine getEngine(){
-    return engine;
-  }
-
-  private static final String DEFAULT_HTML="<!DOCTYPE html><html><body>Open file</body></html>";
-
-
-  private InvalidationListener update = this::update;
-  private void update(final Observable o){
-    final MarkedHTML markedHtml = getMarkedHtml();
-    scrollX=Double.NaN;
-    scrollY=Double.NaN;
-    final boolean b=markedHtml!=null && markedHtml.isChangeURI();
-    if(!b){
-      getScrollPosition();
-    }
-    String html;
-    if(markedHtml==null){
-      html = DEFAULT_HTML;
-    }else{
-      html = markedHtml.getHtml();
-    }
-
-
-    engine.loadContent(html);
-    pseudoClassStateChanged(EMPTY,markedHtml!=null? markedHtml.getReader()==null:true);
-    if(!b) {
-      setScrollPosition();
-    }
-  }
-
-
-  private static final String GET_SCROLL_POSITION="["
-      + "(document.documentElement.scrollLeft|document.body.scrollLeft),"
-      + "(document.documentElement.scrollTop|document.body.scrollTop)"
-      + "];";
-
-  private static final String GET_LEFT_POSITION="(document.documentElement.scrollLeft|document.body.scrollLeft);";
-  private static final String GET_RIGHT_POSITION=
-      "Math.max(document.body.clientWidth|0 , document.body.scrollWidth|0, document.documentElement.scrollWidth|0, document.documentElement.clientWidth|0)"
-      + "-(document.documentElement.scrollLeft|document.body.scrollLeft);";
-  private static final String GET_TOP_POSITION="(document.documentElement.scrollTop|document.body.scrollTop);";
-  private static final String GET_BOTTOM_POSITION=""
-      + "Math.max(document.body.clientHeight|0 , document.body.scrollHeight|0, document.documentElement.scrollHeight|0, document.documentElement.clientHeight|0)"
-      + "-(document.documentElement.scrollTop|document.body.scrollTop);";
-
-  private double getPosValue(final String code){
-    return ((Number)engine.executeScript(code)).doubleValue();
-  }
-
-  private ReloadFramePosition dataPosition=ReloadFramePosition.ORIGIN;
-  private double scrollX=Double.NaN,scrollY=Double.NaN;
-  private void getScrollPosition(){
-    ReloadFramePosition p = getReloadFramePosition();
-    if(p==null) {
-      p=ReloadFramePosition.ORIGIN;
-    }
-    dataPosition = p;
-
-    if(p.fixLeft){
-      scrollX = getPosValue(GET_LEFT_POSITION);
-    }else if(p.fixRight){
-      scrollX = getPosValue(GET_RIGHT_POSITION);
-    }
-
-    if(p.fixTop){
-      scrollY = getPosValue(GET_TOP_POSITION);
-    }else if(p.fixBottom){
-      scrollY = getPosValue(GET_BOTTOM_POSITION);
-    }
-
-
-  }
-
-  private void setScrollPosition(){
-    if(dataPosition == ReloadFramePosition.ORIGIN || (scrollX!=scrollX && scrollY!=scrollY)) {
-      return;
-    }
-    String x="0",y="0";
-    final ReloadFramePosition p = dataPosition;
-
-    if(p.fixLeft){
-      x = String.valueOf(scrollX);
-    }else if(p.fixRight){
-      x = "Math.max(document.body.clientWidth|0 , document.body.scrollWidth|0, document.documentElement.scrollWidth|0, document.documentElement.clientWidth|0)-"
-          +scrollX;
-    }
-
-    if(p.fixTop){
-      y = String.valueOf(scrollY);
-    }else if(p.fixBottom){
-      y = "Math.max(document.body.clientHeight|0 , document.body.scrollHeight|0, document.documentElement.scrollHeight|0, document.documentElement.clientHeight|0)-"
-          +scrollY;
-    }
-
-    final String s = "window.scroll("+x+","+y+");";
-    engine.executeScript(s);
-  }
-
-
-  /**
-   *
-   * @return
-   */
-  public final ObjectProperty<MarkedHTML> markeHtmlProperty(){
-    if (markeHtmlProperty == null) {
-      markeHtmlProperty = new SimpleObjectProperty<>(this, "markeHtml", null);
-      markeHtmlProperty.addListener((ob,o,n)->{
-        if(o!=null){
-          o.htmlProperty().removeListener(update);
-        }
-        if(n!=null){
-          n.htmlProperty().addListener(update);
-        }
-        update(ob);
-      });
-
-    }
-    return markeHtmlProperty;
-  }
-
-  public final MarkedHTML getMarkedHtml(){
-    return markeHtmlProperty == null ? null : markeHtmlProperty.get();
-  }
-
-  public final void setMarkedHtml(final MarkedHTML value){
-    markeHtmlProperty().set(value);
-  }
-
-  private ObjectProperty<MarkedHTML> markeHtmlProperty;
-
-
-
-
-
-  /**
-   *
-   * @return
-   */
-  public final ObjectProperty<ReloadFramePosition> reloadFramePositionProperty(){
-    if (reloadFramePositionProperty == null) {
-      reloadFramePositionProperty = new SimpleObjectProperty<>(this, "reloadFramePosition", ReloadFramePosition.FIX_BOTTOM_LEFT);
-    }
-    return reloadFramePositionProperty;
-  }
-
-  public final ReloadFramePosition getReloadFramePosition(){
-    return reloadFramePositionProperty == null ? ReloadFramePosition.FIX_BOTTOM_LEFT : reloadFramePositionProperty.get();
-  }
-
-  public final void setReloadFramePosition(final ReloadFramePosition value){
-    reloadFramePositionProperty().set(value);
-  }
-
-  private ObjectProperty<ReloadFramePosition> reloadFramePositionProperty;
-
-}
+package nodamushi.jfx.markedj;
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.concurrent.Worker.State;
+import javafx.css.PseudoClass;
+import javafx.geometry.HPos;
+import javafx.geometry.VPos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+import javafx.scene.web.WebEngine;
+import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
+
+public class MarkedView extends Region{
+
+  public static enum ReloadFramePosition{
+    ORIGIN,
+    FIX_TOP(0,1),FIX_TOP_LEFT(1,1),FIX_TOP_RIGHT(-1,1),
+    FIX_BOTTOM(0,-1),FIX_BOTTOM_LEFT(1,-1),FIX_BOTTOM_RIGHT(-1,-1),
+    FIX_LEFT(1,0),FIX_RIGHT(-1,0)
+
+    ;
+    public final boolean origin;
+    public final boolean fixTop;
+    public final boolean fixBottom;
+    public final boolean fixLeft;
+    public final boolean fixRight;
+    private ReloadFramePosition(){
+      origin=true;
+      fixBottom=fixLeft=fixTop=fixRight=false;
+    }
+    private ReloadFramePosition(final int v,final int h){
+      origin=v==0 && h==0;
+      fixTop = h==1;
+      fixBottom = h==-1;
+      fixLeft = v==1;
+      fixRight=v==-1;
+    }
+
+  }
+  private static PseudoClass EMPTY=PseudoClass.getPseudoClass("empty");
+
+  private WebView view;
+  private WebEngine engine;
+  private Label emptyMessage;
+
+  public MarkedView(){
+    getStyleClass().setAll("md-view");
+    view = new WebView();
+    emptyMessage = new Label("Drag & Drop Markdown file");
+    emptyMessage.getStyleClass().setAll("empty-message");
+    getChildren().addAll(emptyMessage,view);
+    engine = view.getEngine();
+    update(null);
+    pseudoClassStateChanged(EMPTY, true);
+    engine.getLoadWorker().stateProperty().addListener(o->{
+      if(engine.getLoadWorker().getState()==State.SUCCEEDED){
+        initSections();
+        setScrollPosition();
+      }
+    });
+  }
+
+  public void reload(){
+    update(null);
+  }
+
+
+  @Override
+  protected void layoutChildren(){
+    layoutInArea(emptyMessage, 0, 0, getWidth(), getHeight(), 0,
+        getInsets(), false, false, HPos.CENTER , VPos.CENTER);
+    layoutInArea(view, 0, 0, getWidth(), getHeight(), 0,
+        getInsets(), true, true, HPos.LEFT , VPos.TOP);
+  }
+  @Override
+  protected double computePrefHeight(final double width){
+    return 600;
+  }
+
+  @Override
+  protected double computePrefWidth(final double height){
+    return 800;
+  }
+
+  public WebEngine getEngine(){
+    return engine;
+  }
+
+  private static final String DEFAULT_HTML="<!DOCTYPE html><html><body>Open file</body></html>";
+
+
+  private InvalidationListener update = this::update;
+  private void update(final Observable o){
+    final MarkedHTML markedHtml = getMarkedHtml();
+    scrollX=Double.NaN;
+    scrollY=Double.NaN;
+    final boolean b=markedHtml!=null && markedHtml.isChangeURI();
+    final boolean codeOnly=markedHtml!=null && markedHtml.isChangeCodeOnly();
+    if(!b){
+      getScrollPosition();
+    }
+    if(!b && codeOnly && o!=null && sections!=null && patchSections(markedHtml.getReader())){
+      markedHtml.getHtml();//次の変更を通知してもらうために、htmlを有効な状態に戻す
+      return;
+    }
+    if(!b && codeOnly && o!=null && isPatchUpdate() && sections==null && patch(markedHtml.getReader())){
+      markedHtml.getHtml();//次の変更を通知してもらうために、htmlを有効な状態に戻す
+      setScrollPosition();
+      return;
+    }
+    if(b){
+      sectionHeights.clear();
+    }else{
+      saveSectionHeights();
+    }
+    final String code = markedHtml==null || markedHtml.getReader()==null? null: markedHtml.getReader().getCode();
+    final PreviewServer server = getServer();
+    sections = null;
+    if(markedHtml==null){
+      engine.loadContent(DEFAULT_HTML);
+    }else{
+      String html = markedHtml.getHtml();
+      String markdown = code;
+      final List<Section> list = createSections(code);
+      if(list!=null){
+        sections = list;
+        markdown = createSectionShell(list);
+        html = null;
+      }
+      if(server!=null && server.isRunning()){
+        //CSSやJavaScriptをWebKitのキャッシュから読み込めるように、HTTPで読み込む
+        engine.load(server.publish(markdown).toString());
+      }else{
+        engine.loadContent(html!=null? html: markedHtml.createHtml(markdown));
+      }
+    }
+    shownBlocks = code==null?
+        Collections.emptySet(): splitBlocks(code).keySet();
+    pseudoClassStateChanged(EMPTY,markedHtml!=null? markedHtml.getReader()==null:true);
+    if(!b) {
+      setScrollPosition();
+    }
+  }
+
+
+  private static final String BLOCK_KEY=IncrementalRenderer.BLOCK_MARKER.substring(4);//"<!--"を除く
+
+  /**
+   * &lt;!-- start markdown --&gt;と&lt;!-- end markdown --&gt;の間を置き換えるスクリプト。<br/>
+   * __markedjPatchは全体を置き換え、__markedjDiffはブロック単位で挿入、削除、移動だけを行います。<br/>
+   * 置き換えた後、documentにmarkedj-updateイベントを発行します。
+   */
+  private static final String PATCH_SCRIPT=""
+      + "window.__markedjRange=function(){"
+      + "var w=document.createTreeWalker(document.body,NodeFilter.SHOW_COMMENT,null,false);"
+      + "var s=null,e=null,n;"
+      + "while((n=w.nextNode())){"
+      + "var v=n.nodeValue.trim();"
+      + "if(v==='start markdown'){s=n;}else if(v==='end markdown'&&s){e=n;break;}"
+      + "}"
+      + "return s&&e&&s.parentNode===e.parentNode?[s,e]:null;"
+      + "};"
+      + "window.__markedjUpdated=function(){"
+      + "var ev=document.createEvent('Event');"
+      + "ev.initEvent('markedj-update',true,false);"
+      + "document.dispatchEvent(ev);"
+      + "};"
+      + "window.__markedjPatch=function(code){"
+      + "var a=__markedjRange();"
+      + "if(!a){return false;}"
+      + "var s=a[0],e=a[1],p=s.parentNode;"
+      + "while(s.nextSibling!==e){p.removeChild(s.nextSibling);}"
+      + "var r=document.createRange();"
+      + "r.setStartAfter(s);"
+      + "p.insertBefore(r.createContextualFragment(code),e);"
+      + "__markedjUpdated();"
+      + "return true;"
+      + "};"
+      + "window.__markedjDiff=function(keys,htmls){"
+      + "var a=__markedjRange();"
+      + "if(!a){return false;}"
+      + "var s=a[0],e=a[1],p=s.parentNode,old={},cur=null,n,i,k;"
+      + "for(n=s.nextSibling;n!==e;n=n.nextSibling){"
+      + "if(n.nodeType===8&&n.nodeValue.indexOf('" + BLOCK_KEY + "')===0){"
+      + "cur={m:n,nodes:[n]};old[n.nodeValue.substring(" + BLOCK_KEY.length() + ")]=cur;"
+      + "}else if(cur){cur.nodes.push(n);}"
+      + "}"
+      + "keys=keys.split('\\n');"
+      + "for(i=0;i<keys.length;i++){"
+      + "k=keys[i];"
+      + "if(!old.hasOwnProperty(k)&&!htmls.hasOwnProperty(k)){return false;}"
+      + "}"
+      + "var pos=s,r=document.createRange(),j,seg,f;"
+      + "for(i=0;i<keys.length;i++){"
+      + "k=keys[i];"
+      + "seg=old.hasOwnProperty(k)?old[k]:null;"
+      + "if(seg){"
+      + "delete old[k];"
+      + "if(pos.nextSibling!==seg.m){"
+      + "for(j=0;j<seg.nodes.length;j++){p.insertBefore(seg.nodes[j],pos.nextSibling);pos=seg.nodes[j];}"
+      + "}else{pos=seg.nodes[seg.nodes.length-1];}"
+      + "}else{"
+      + "r.setStartAfter(pos);"
+      + "f=r.createContextualFragment('<!--" + BLOCK_KEY + "'+k+'-->'+htmls[k]);"
+      + "n=f.lastChild;"
+      + "p.insertBefore(f,pos.nextSibling);"
+      + "pos=n;"
+      + "}"
+      + "}"
+      + "for(k in old){"
+      + "if(old.hasOwnProperty(k)){"
+      + "seg=old[k];"
+      + "for(j=0;j<seg.nodes.length;j++){p.removeChild(seg.nodes[j]);}"
+      + "}"
+      + "}"
+      + "__markedjUpdated();"
+      + "return true;"
+      + "};";
+
+  /**
+   * 表示しているドキュメントのmarkdown部分だけを置き換えます。<br/>
+   * codeがブロック毎に区切られている場合(IncrementalRenderer)は、変わったブロックだけを置き換えます。
+   * @param r
+   * @return 置き換えられなかった場合はfalse
+   */
+  private boolean patch(final MarkedReader r){
+    if(r==null || r.getCode()==null || engine.getLoadWorker().getState()!=State.SUCCEEDED){
+      return false;
+    }
+    try{
+      final String code = r.getCode();
+      engine.executeScript(PATCH_SCRIPT);
+      final JSObject window = (JSObject)engine.executeScript("window");
+      final Map<String, String> blocks = splitBlocks(code);
+      if(!blocks.isEmpty() && !shownBlocks.isEmpty()){
+        final JSObject htmls = (JSObject)engine.executeScript("({})");
+        for(final Map.Entry<String, String> e:blocks.entrySet()){
+          if(!shownBlocks.contains(e.getKey())){
+            htmls.setMember(e.getKey(), e.getValue());
+          }
+        }
+        final String keys = String.join("\n", blocks.keySet());
+        if(Boolean.TRUE.equals(window.call("__markedjDiff", keys, htmls))){
+          shownBlocks = blocks.keySet();
+          return true;
+        }
+      }
+      if(Boolean.TRUE.equals(window.call("__markedjPatch", code))){
+        shownBlocks = blocks.keySet();
+        return true;
+      }
+      return false;
+    }catch(final RuntimeException e){
+      return false;
+    }
+  }
+
+  private Set<String> shownBlocks = Collections.emptySet();
+
+  /**
+   * IncrementalRendererが出力したcodeをブロック毎に分割します。
+   * @param code
+   * @return キーとHTMLのMap。ブロックに区切られていない場合は空
+   */
+  private static Map<String, String> splitBlocks(final String code){
+    final Map<String, String> map = new LinkedHashMap<>();
+    if(code==null){
+      return map;
+    }
+    final String marker = IncrementalRenderer.BLOCK_MARKER;
+    int index = code.indexOf(marker);
+    while(index!=-1){
+      final int end = code.indexOf("-->", index);
+      if(end==-1){
+        break;
+      }
+      final String key = code.substring(index+marker.length(), end);
+      final int next = code.indexOf(marker, end);
+      map.put(key, code.substring(end+3, next==-1?code.length():next));
+      index = next;
+    }
+    return map;
+  }
+
+  /**
+   * 仮想化で一度に表示するセクションの大きさの目安(文字数)。
+   */
+  private static final int SECTION_SIZE = 32*1024;
+
+  private static final class Section{
+    private final String key;
+    private final String html;
+    private Section(final String key,final String html){
+      this.key = key;
+      this.html = html;
+    }
+  }
+
+  /**
+   * 仮想化して表示しているセクション。仮想化していない場合はnull
+   */
+  private List<Section> sections;
+  /**
+   * 実際に表示した時のセクションの高さ。読み込み直したときの高さの見積もりに使います。
+   */
+  private final Map<String, Double> sectionHeights = new HashMap<>();
+
+  /**
+   * codeをセクションに分けます。セクションは見出しで始まるように区切ります。
+   * @param code
+   * @return 仮想化しない場合はnull
+   */
+  private List<Section> createSections(final String code){
+    final int threshold = getVirtualSize();
+    if(code==null || threshold <= 0 || code.length() < threshold){
+      return null;
+    }
+    final Map<String, String> blocks = splitBlocks(code);
+    if(blocks.isEmpty()){
+      return null;
+    }
+    final List<Section> list = new ArrayList<>();
+    final StringBuilder sb = new StringBuilder();
+    String key = null;
+    for(final Map.Entry<String, String> e:blocks.entrySet()){
+      final String html = e.getValue();
+      if(key != null && (sb.length() >= SECTION_SIZE && isHeading(html) || sb.length() >= SECTION_SIZE*4)){
+        list.add(new Section(key, sb.toString()));
+        sb.setLength(0);
+        key = null;
+      }
+      if(key == null){
+        key = e.getKey();
+      }
+      sb.append(IncrementalRenderer.BLOCK_MARKER).append(e.getKey()).append("-->\n").append(html);
+    }
+    if(key != null){
+      list.add(new Section(key, sb.toString()));
+    }
+    return list;
+  }
+
+  private static boolean isHeading(final String html){
+    final String t = html.trim();
+    return t.length() > 2 && t.charAt(0)=='<' && (t.charAt(1)=='h' || t.charAt(1)=='H')
+        && t.charAt(2) >= '1' && t.charAt(2) <= '6';
+  }
+
+  /**
+   * セクションの代わりに表示する、高さだけを持った要素を作成します。
+   */
+  private String createSectionShell(final List<Section> list){
+    final StringBuilder sb = new StringBuilder(list.size()*80);
+    for(final Section s:list){
+      Double h = sectionHeights.get(s.key);
+      if(h == null){
+        h = estimateHeight(s.html);
+      }
+      sb.append("<div class=\"md-section\" data-md-section=\"").append(s.key)
+      .append("\" style=\"height:").append(h).append("px\"></div>\n");
+    }
+    return sb.toString();
+  }
+
+  private static double estimateHeight(final String html){
+    int lines = html.length()/100;
+    for(int i=html.indexOf('\n');i!=-1;i=html.indexOf('\n', i+1)){
+      lines++;
+    }
+    return Math.max(lines, 1)*20;
+  }
+
+  /**
+   * 表示領域の前後にあるセクションだけをDOMに展開し、離れたセクションは高さを保ったまま空にするスクリプト。<br/>
+   * 表示領域より上のセクションを展開して高さが変わった場合は、その分スクロールして表示位置を保ちます。<br/>
+   * __markedjSectionPatchは変わったセクションのHTMLだけを置き換えます。
+   * ページ内のリンク(#id)をクリックしたときは、idを含むセクションを展開します。
+   */
+  private static final String SECTION_SCRIPT=""
+      + "window.__markedjSections=function(htmls){"
+      + "var S=[],list=document.querySelectorAll('div[data-md-section]'),i,timer=null;"
+      + "for(i=0;i<list.length;i++){S.push({e:list[i],h:htmls[list[i].getAttribute('data-md-section')],shown:false});}"
+      + "var fire=function(){"
+      + "var ev=document.createEvent('Event');"
+      + "ev.initEvent('markedj-update',true,false);"
+      + "document.dispatchEvent(ev);"
+      + "};"
+      + "var show=function(s){s.e.innerHTML=s.h;s.e.style.height='';s.shown=true;};"
+      + "var update=function(){"
+      + "timer=null;"
+      + "var top=window.pageYOffset,m=window.innerHeight*2,changed=false,k,s,r,y,old,keep;"
+      + "for(k=0;k<S.length;k++){"
+      + "s=S[k];r=s.e.getBoundingClientRect();y=r.top+top;old=r.height;"
+      + "keep=y+old>=top-m&&y<=top+window.innerHeight+m;"
+      + "if(keep===s.shown){continue;}"
+      + "if(keep){show(s);}"
+      + "else{s.e.style.height=old+'px';s.e.innerHTML='';s.shown=false;}"
+      + "changed=true;"
+      + "if(y+old<=top){window.scrollBy(0,s.e.getBoundingClientRect().height-old);top=window.pageYOffset;}"
+      + "}"
+      + "if(changed){fire();}"
+      + "};"
+      + "var later=function(){if(timer===null){timer=setTimeout(update,30);}};"
+      + "window.addEventListener('scroll',later,false);"
+      + "window.addEventListener('resize',later,false);"
+      + "var reveal=function(id){"
+      + "if(!id||document.getElementById(id)||document.getElementsByName(id).length){return false;}"
+      + "var a='id=\"'+id+'\"',b='name=\"'+id+'\"',k;"
+      + "for(k=0;k<S.length;k++){"
+      + "if(!S[k].shown&&(S[k].h.indexOf(a)!==-1||S[k].h.indexOf(b)!==-1)){show(S[k]);fire();return true;}"
+      + "}"
+      + "return false;"
+      + "};"
+      + "var hash=function(h){try{return decodeURIComponent(h.substring(1));}catch(x){return h.substring(1);}};"
+      + "document.addEventListener('click',function(ev){"
+      + "var a=ev.target;"
+      + "while(a&&a.nodeName!=='A'){a=a.parentNode;}"
+      + "var h=a&&a.getAttribute?a.getAttribute('href'):null;"
+      + "if(h&&h.charAt(0)==='#'){reveal(hash(h));}"
+      + "},true);"
+      + "window.addEventListener('hashchange',function(){"
+      + "var id=hash(location.hash);"
+      + "if(reveal(id)){var t=document.getElementById(id)||document.getElementsByName(id)[0];if(t){t.scrollIntoView();}}"
+      + "},false);"
+      + "window.__markedjSectionPatch=function(keys,htmls,heights){"
+      + "if(!S.length){return false;}"
+      + "var p=S[0].e.parentNode,pos=S[0].e.previousSibling,old={},next=[],anchor=null,at=0,k,s,e,r;"
+      + "for(i=0;i<S.length;i++){"
+      + "old[S[i].e.getAttribute('data-md-section')]=S[i];"
+      + "if(!anchor&&S[i].e.getBoundingClientRect().bottom>0){anchor=S[i].e;at=anchor.getBoundingClientRect().top;}"
+      + "}"
+      + "keys=keys.split('\\n');"
+      + "for(i=0;i<keys.length;i++){"
+      + "k=keys[i];"
+      + "s=old.hasOwnProperty(k)?old[k]:null;"
+      + "if(s){delete old[k];}"
+      + "if(htmls.hasOwnProperty(k)){"
+      + "if(s){s.h=htmls[k];if(s.shown){s.e.innerHTML=s.h;}}"
+      + "else{"
+      + "e=document.createElement('div');"
+      + "e.className='md-section';"
+      + "e.setAttribute('data-md-section',k);"
+      + "e.style.height=heights[k]+'px';"
+      + "s={e:e,h:htmls[k],shown:false};"
+      + "}"
+      + "}else if(!s){return false;}"
+      + "r=pos?pos.nextSibling:p.firstChild;"
+      + "if(r!==s.e){p.insertBefore(s.e,r);}"
+      + "pos=s.e;"
+      + "next.push(s);"
+      + "}"
+      + "for(k in old){if(old.hasOwnProperty(k)){p.removeChild(old[k].e);}}"
+      + "S=next;"
+      + "if(anchor&&anchor.parentNode===p){window.scrollBy(0,anchor.getBoundingClientRect().top-at);}"
+      + "update();"
+      + "fire();"
+      + "return true;"
+      + "};"
+      + "window.__markedjSectionHeights=function(){"
+      + "var a=[];"
+      + "for(var k=0;k<S.length;k++){if(S[k].shown){a.push(S[k].e.getAttribute('data-md-section')+' '+S[k].e.getBoundingClientRect().height);}}"
+      + "return a.join('\\n');"
+      + "};"
+      + "update();"
+      + "};";
+
+  /**
+   * 読み込んだページにセクションのHTMLを渡します。
+   */
+  private void initSections(){
+    final List<Section> list = sections;
+    if(list==null){
+      return;
+    }
+    try{
+      engine.executeScript(SECTION_SCRIPT);
+      final JSObject window = (JSObject)engine.executeScript("window");
+      final JSObject htmls = (JSObject)engine.executeScript("({})");
+      for(final Section s:list){
+        htmls.setMember(s.key, s.html);
+      }
+      window.call("__markedjSections", htmls);
+    }catch(final RuntimeException e){
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * 仮想化して表示しているページの、変わったセクションだけを置き換えます。
+   * 展開していないセクションは保持しているHTMLだけを置き換えます。
+   * @param r
+   * @return 置き換えられなかった場合はfalse
+   */
+  private boolean patchSections(final MarkedReader r){
+    if(r==null || r.getCode()==null || engine.getLoadWorker().getState()!=State.SUCCEEDED){
+      return false;
+    }
+    final String code = r.getCode();
+    final List<Section> list = createSections(code);
+    if(list==null){
+      return false;
+    }
+    try{
+      final Map<String, String> old = new HashMap<>();
+      for(final Section s:sections){
+        old.put(s.key, s.html);
+      }
+      final JSObject htmls = (JSObject)engine.executeScript("({})");
+      final JSObject heights = (JSObject)engine.executeScript("({})");
+      final StringBuilder keys = new StringBuilder();
+      for(final Section s:list){
+        if(keys.length()!=0){
+          keys.append('\n');
+        }
+        keys.append(s.key);
+        if(!s.html.equals(old.get(s.key))){
+          htmls.setMember(s.key, s.html);
+          final Double h = sectionHeights.get(s.key);
+          heights.setMember(s.key, h==null? estimateHeight(s.html): h);
+        }
+      }
+      final JSObject window = (JSObject)engine.executeScript("window");
+      if(!Boolean.TRUE.equals(window.call("__markedjSectionPatch", keys.toString(), htmls, heights))){
+        return false;
+      }
+      sections = list;
+      shownBlocks = splitBlocks(code).keySet();
+      return true;
+    }catch(final RuntimeException e){
+      return false;
+    }
+  }
+
+  /**
+   * 表示したセクションの高さを保存します。
+   */
+  private void saveSectionHeights(){
+    if(sections==null || engine.getLoadWorker().getState()!=State.SUCCEEDED){
+      return;
+    }
+    try{
+      final Object o = engine.executeScript("window.__markedjSectionHeights?window.__markedjSectionHeights():''");
+      if(!(o instanceof String) || ((String)o).isEmpty()){
+        return;
+      }
+      for(final String line:((String)o).split("\n")){
+        final int i = line.indexOf(' ');
+        if(i!=-1){
+          sectionHeights.put(line.substring(0, i), Double.valueOf(line.substring(i+1)));
+        }
+      }
+    }catch(final RuntimeException e){
+    }
+  }
+
+  private static final String GET_SCROLL_POSITION="["
+      + "(document.documentElement.scrollLeft|document.body.scrollLeft),"
+      + "(document.documentElement.scrollTop|document.body.scrollTop)"
+      + "];";
+
+  private static final String GET_LEFT_POSITION="(document.documentElement.scrollLeft|document.body.scrollLeft);";
+  private static final String GET_RIGHT_POSITION=
+      "Math.max(document.body.clientWidth|0 , document.body.scrollWidth|0, document.documentElement.scrollWidth|0, document.documentElement.clientWidth|0)"
+      + "-(document.documentElement.scrollLeft|document.body.scrollLeft);";
+  private static final String GET_TOP_POSITION="(document.documentElement.scrollTop|document.body.scrollTop);";
+  private static final String GET_BOTTOM_POSITION=""
+      + "Math.max(document.body.clientHeight|0 , document.body.scrollHeight|0, document.documentElement.scrollHeight|0, document.documentElement.clientHeight|0)"
+      + "-(document.documentElement.scrollTop|document.body.scrollTop);";
+
+  private double getPosValue(final String code){
+    return ((Number)engine.executeScript(code)).doubleValue();
+  }
+
+  private ReloadFramePosition dataPosition=ReloadFramePosition.ORIGIN;
+  private double scrollX=Double.NaN,scrollY=Double.NaN;
+  private void getScrollPosition(){
+    ReloadFramePosition p = getReloadFramePosition();
+    if(p==null) {
+      p=ReloadFramePosition.ORIGIN;
+    }
+    dataPosition = p;
+
+    if(p.fixLeft){
+      scrollX = getPosValue(GET_LEFT_POSITION);
+    }else if(p.fixRight){
+      scrollX = getPosValue(GET_RIGHT_POSITION);
+    }
+
+    if(p.fixTop){
+      scrollY = getPosValue(GET_TOP_POSITION);
+    }else if(p.fixBottom){
+      scrollY = getPosValue(GET_BOTTOM_POSITION);
+    }
+
+
+  }
+
+  private void setScrollPosition(){
+    if(dataPosition == ReloadFramePosition.ORIGIN || (scrollX!=scrollX && scrollY!=scrollY)) {
+      return;
+    }
+    String x="0",y="0";
+    final ReloadFramePosition p = dataPosition;
+
+    if(p.fixLeft){
+      x = String.valueOf(scrollX);
+    }else if(p.fixRight){
+      x = "Math.max(document.body.clientWidth|0 , document.body.scrollWidth|0, document.documentElement.scrollWidth|0, document.documentElement.clientWidth|0)-"
+          +scrollX;
+    }
+
+    if(p.fixTop){
+      y = String.valueOf(scrollY);
+    }else if(p.fixBottom){
+      y = "Math.max(document.body.clientHeight|0 , document.body.scrollHeight|0, document.documentElement.scrollHeight|0, document.documentElement.clientHeight|0)-"
+          +scrollY;
+    }
+
+    final String s = "window.scroll("+x+","+y+");";
+    engine.executeScript(s);
+  }
+
+
+  /**
+   *
+   * @return
+   */
+  public final ObjectProperty<MarkedHTML> markeHtmlProperty(){
+    if (markeHtmlProperty == null) {
+      markeHtmlProperty = new SimpleObjectProperty<>(this, "markeHtml", null);
+      markeHtmlProperty.addListener((ob,o,n)->{
+        if(o!=null){
+          o.htmlProperty().removeListener(update);
+        }
+        if(n!=null){
+          n.htmlProperty().addListener(update);
+        }
+        update(ob);
+      });
+
+    }
+    return markeHtmlProperty;
+  }
+
+  public final MarkedHTML getMarkedHtml(){
+    return markeHtmlProperty == null ? null : markeHtmlProperty.get();
+  }
+
+  public final void setMarkedHtml(final MarkedHTML value){
+    markeHtmlProperty().set(value);
+  }
+
+  private ObjectProperty<MarkedHTML> markeHtmlProperty;
+
+
+
+
+
+  /**
+   *
+   * @return
+   */
+  public final ObjectProperty<ReloadFramePosition> reloadFramePositionProperty(){
+    if (reloadFramePositionProperty == null) {
+      reloadFramePositionProperty = new SimpleObjectProperty<>(this, "reloadFramePosition", ReloadFramePosition.FIX_BOTTOM_LEFT);
+    }
+    return reloadFramePositionProperty;
+  }
+
+  public final ReloadFramePosition getReloadFramePosition(){
+    return reloadFramePositionProperty == null ? ReloadFramePosition.FIX_BOTTOM_LEFT : reloadFramePositionProperty.get();
+  }
+
+  public final void setReloadFramePosition(final ReloadFramePosition value){
+    reloadFramePositionProperty().set(value);
+  }
+
+  private ObjectProperty<ReloadFramePosition> reloadFramePositionProperty;
+
+
+  /**
+   * trueの場合、Readerのcodeだけが変わったときはページを読み込み直さずに、
+   * markdown部分のDOMだけを置き換えます。
+   * @return
+   */
+  public final BooleanProperty patchUpdateProperty(){
+    if (patchUpdateProperty == null) {
+      patchUpdateProperty = new SimpleBooleanProperty(this, "patchUpdate", false);
+    }
+    return patchUpdateProperty;
+  }
+
+  public final boolean isPatchUpdate(){
+    return patchUpdateProperty == null ? false : patchUpdateProperty.get();
+  }
+
+  public final void setPatchUpdate(final boolean value){
+    patchUpdateProperty().set(value);
+  }
+
+  private BooleanProperty patchUpdateProperty;
+
+
+  /**
+   * Readerのcodeがこの文字数以上の場合、表示領域の近くにあるセクションだけをDOMに展開します。<br/>
+   * 仮想化している間にcodeだけが変わった場合は、patchUpdateに関わらず、変わったセクションだけを置き換えます。<br/>
+   * codeがブロック毎に区切られている(IncrementalRenderer)必要があります。0以下の場合は仮想化しません。
+   * @return
+   */
+  public final IntegerProperty virtualSizeProperty(){
+    if (virtualSizeProperty == null) {
+      virtualSizeProperty = new SimpleIntegerProperty(this, "virtualSize", 0);
+    }
+    return virtualSizeProperty;
+  }
+
+  public final int getVirtualSize(){
+    return virtualSizeProperty == null ? 0 : virtualSizeProperty.get();
+  }
+
+  public final void setVirtualSize(final int value){
+    virtualSizeProperty().set(value);
+  }
+
+  private IntegerProperty virtualSizeProperty;
+
+
+  /**
+   * 設定されていて開始している場合、ページをloadContentではなく、PreviewServer.publishのURIから読み込みます。<br/>
+   * CSSやJavaScriptはキャッシュできるように返されるので、読み込み直したときはHTMLだけを取得します。
+   * @return
+   */
+  public final ObjectProperty<PreviewServer> serverProperty(){
+    if (serverProperty == null) {
+      serverProperty = new SimpleObjectProperty<>(this, "server", null);
+    }
+    return serverProperty;
+  }
+
+  public final PreviewServer getServer(){
+    return serverProperty == null ? null : serverProperty.get();
+  }
+
+  public final void setServer(final PreviewServer value){
+    serverProperty().set(value);
+  }
+
+  private ObjectProperty<PreviewServer> serverProperty;
+
+}
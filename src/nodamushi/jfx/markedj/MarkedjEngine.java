@@ -0,0 +1,108 @@
+package nodamushi.jfx.markedj;
+
+import static java.util.Objects.*;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import io.github.gitbucket.markedj.Marked;
+import io.github.gitbucket.markedj.Options;
+
+/**
+ * markedjを使うMarkdownEngine。<br/>
+ * 同じOptionsのインスタンスを持つMarkedjEngineは等しいとみなします。
+ * @author nodamushi
+ *
+ */
+public class MarkedjEngine implements MarkdownEngine{
+
+  public static final String NAME = "markedj";
+
+  private static final String VERSION = getMarkedVersion();
+
+  /**
+   * markedjのバージョン。分からない場合はMarkedクラスを含むjar(またはclassファイル)の更新日時
+   */
+  private static String getMarkedVersion(){
+    final String v = Marked.class.getPackage()==null? null: Marked.class.getPackage().getImplementationVersion();
+    if(v!=null){
+      return v;
+    }
+    try{
+      final Path p = Paths.get(Marked.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      final Path c = Files.isDirectory(p)? p.resolve(Marked.class.getName().replace('.', '/')+".class"): p;
+      return String.valueOf(Files.getLastModifiedTime(c).toMillis());
+    }catch(final Exception e){
+      return "unknown";
+    }
+  }
+
+  private final Options options;
+
+  /**
+   * MarkedReader.DEFAULT_OPTIONSを使います。
+   */
+  public MarkedjEngine(){
+    this(MarkedReader.DEFAULT_OPTIONS);
+  }
+
+  public MarkedjEngine(final Options options){
+    this.options = requireNonNull(options,"options");
+  }
+
+  public Options getOptions(){
+    return options;
+  }
+
+  @Override
+  public String getName(){
+    return NAME;
+  }
+
+  @Override
+  public String getVersion(){
+    return VERSION;
+  }
+
+  @Override
+  public String render(final String markdown){
+    return Marked.marked(markdown, options);
+  }
+
+  /**
+   * Optionsの引数の無いgetterの値を全て並べます。
+   */
+  @Override
+  public String getSettingsKey(){
+    final StringBuilder sb = new StringBuilder(NAME).append(':').append(VERSION);
+    final Method[] methods = options.getClass().getMethods();
+    Arrays.sort(methods, (a,b)->a.getName().compareTo(b.getName()));
+    for(final Method m:methods){
+      final String name = m.getName();
+      final Class<?> t = m.getReturnType();
+      if(m.getParameterCount()!=0 || name.equals("getClass") ||
+          !(name.startsWith("get") || name.startsWith("is")) ||
+          !(t.isPrimitive() || t == String.class || t.isEnum())){
+        continue;
+      }
+      try{
+        sb.append(',').append(name).append('=').append(m.invoke(options));
+      }catch(final ReflectiveOperationException e){
+      }
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public boolean equals(final Object obj){
+    return obj instanceof MarkedjEngine && ((MarkedjEngine)obj).options == options;
+  }
+
+  @Override
+  public int hashCode(){
+    return System.identityHashCode(options);
+  }
+}
@@ -0,0 +1,147 @@
+package nodamushi.jfx.markedj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Markdownのテキストを見出しの位置でセグメントに分割し、ForkJoinPoolで並列にレンダリングするクラス。<br/>
+ * 分割はMarkdownBlocksのブロック単位で行うので、コードブロックやリストの途中では分割しません。
+ * 参照形式のリンク定義はドキュメント全体から集め、リンクを含むセグメントに追加します。
+ * @author nodamushi
+ *
+ */
+public final class ParallelRenderer{
+
+  /**
+   * 一つのセグメントの大きさの目安(文字数)。これより小さいセグメントは次のセグメントとまとめます。
+   */
+  private static final int SEGMENT_SIZE = 16*1024;
+
+  private static volatile int threshold = 0;
+
+  /**
+   * 並列にレンダリングするテキストの文字数の下限を設定します。0以下の場合は並列にレンダリングしません。
+   * @param size
+   */
+  public static void setThreshold(final int size){
+    threshold = size;
+  }
+
+  public static int getThreshold(){
+    return threshold;
+  }
+
+  /**
+   * lengthの文字数のテキストを並列にレンダリングするかどうか
+   * @param length
+   * @return
+   */
+  public static boolean isParallel(final int length){
+    final int t = threshold;
+    return t > 0 && length >= t;
+  }
+
+  private static class Pool{
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  private static class Render extends RecursiveTask<String>{
+    private static final long serialVersionUID = 1L;
+    private final String[] sources;
+    private final MarkdownEngine engine;
+    private final int from,to;
+
+    private Render(final String[] sources,final MarkdownEngine engine,final int from,final int to){
+      this.sources = sources;
+      this.engine = engine;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected String compute(){
+      if(to-from == 1){
+        return engine.render(sources[from]);
+      }
+      final int mid = (from+to)>>>1;
+      final Render left = new Render(sources, engine, from, mid);
+      left.fork();
+      final String right = new Render(sources, engine, mid, to).compute();
+      return left.join()+right;
+    }
+  }
+
+  private static class RenderAll extends RecursiveTask<String[]>{
+    private static final long serialVersionUID = 1L;
+    private final String[] sources;
+    private final String[] results;
+    private final MarkdownEngine engine;
+    private final int from,to;
+
+    private RenderAll(final String[] sources,final String[] results,final MarkdownEngine engine,final int from,final int to){
+      this.sources = sources;
+      this.results = results;
+      this.engine = engine;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected String[] compute(){
+      if(to-from == 1){
+        results[from] = engine.render(sources[from]);
+        return results;
+      }
+      final int mid = (from+to)>>>1;
+      invokeAll(new RenderAll(sources, results, engine, from, mid),
+          new RenderAll(sources, results, engine, mid, to));
+      return results;
+    }
+  }
+
+  /**
+   * sourceを見出しの位置で分割し、並列にレンダリングします。
+   * @param source
+   * @param o
+   * @return o.render(source)と同じHTML
+   */
+  public static String render(final String source,final MarkdownEngine o){
+    final MarkdownBlocks blocks = MarkdownBlocks.parse(source);
+    final int size = blocks.getBlocks().size();
+    final List<String> segments = new ArrayList<>();
+    int start = 0,length = 0;
+    for(int i=0;i<size;i++){
+      if(length >= SEGMENT_SIZE && blocks.isHeading(i)){
+        segments.add(blocks.getSource(start, i));
+        start = i;
+        length = 0;
+      }
+      length += blocks.getBlocks().get(i).length();
+    }
+    if(start < size){
+      segments.add(blocks.getSource(start, size));
+    }
+    if(segments.size() < 2){
+      return o.render(source);
+    }
+    return Pool.POOL.invoke(new Render(segments.toArray(new String[segments.size()]), o, 0, segments.size()));
+  }
+
+  /**
+   * sourcesをそれぞれ並列にレンダリングします。
+   * @param sources
+   * @param o
+   * @return sourcesと同じ順番のHTML
+   */
+  public static String[] renderAll(final String[] sources,final MarkdownEngine o){
+    final String[] results = new String[sources.length];
+    if(sources.length == 0){
+      return results;
+    }
+    return Pool.POOL.invoke(new RenderAll(sources, results, o, 0, sources.length));
+  }
+
+  private ParallelRenderer(){}
+}
@@ -0,0 +1,566 @@
+package nodamushi.jfx.markedj;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javafx.beans.InvalidationListener;
+
+/**
+ * MarkedHTMLのページをブラウザで表示するためのHTTPサーバー。<br/>
+ * 「/」で現在のページを返し、それ以外のパスはMarkedReader.getDirectory()からの相対パスのファイルを返します。
+ * CSSやJavaScriptのファイルは/__markedj/asset/以下のパスに置き換えて返します。
+ * このパスにはファイルのサイズと更新日時を含めるので、長期間キャッシュできるように返します。<br/>
+ * ページを更新すると、/__markedj/eventsに接続しているブラウザにServer-Sent Eventsでreloadイベントを送り、
+ * ページに埋め込んだスクリプトがページを読み込み直します。<br/>
+ * ファイルにはETagを付け、If-None-Matchが一致する場合は304を返します。<br/>
+ * MarkedViewはpublishで作成した/__markedj/view?g=世代のページを読み込みます。<br/>
+ * FXのスレッドではmarkdownを受け取るだけで、ページは最初に要求されたときにサーバーのスレッドで作成します。
+ * イベントの書き込みもサーバーのスレッドで行い、書き込みが進まないブラウザは切断します。
+ * @author nodamushi
+ *
+ */
+public class PreviewServer{
+
+  public static final String PREFIX = "/__markedj/";
+  private static final String EVENTS = PREFIX+"events";
+  private static final String ASSET = PREFIX+"asset/";
+  private static final String VIEW = PREFIX+"view";
+  private static final String MAX_AGE = "max-age=31536000";
+  /**
+   * イベントの書き込みがこの時間(ナノ秒)終わらないブラウザは切断します
+   */
+  private static final long WRITE_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+  private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+  static{
+    final String[] types = {
+        "html","text/html; charset=utf-8",
+        "htm","text/html; charset=utf-8",
+        "css","text/css; charset=utf-8",
+        "js","application/javascript; charset=utf-8",
+        "json","application/json; charset=utf-8",
+        "txt","text/plain; charset=utf-8",
+        "md","text/plain; charset=utf-8",
+        "svg","image/svg+xml",
+        "png","image/png",
+        "gif","image/gif",
+        "jpg","image/jpeg",
+        "jpeg","image/jpeg",
+        "ico","image/x-icon",
+        "woff","font/woff",
+        "woff2","font/woff2",
+    };
+    for(int i=0;i<types.length;i+=2){
+      CONTENT_TYPES.put(types[i], types[i+1]);
+    }
+  }
+
+  /**
+   * 公開しているページ。FXのスレッドではmarkdownだけを保持し、HTMLはgetHtmlで作成します。
+   */
+  private final class Page{
+    private final String code;
+    private final String etag;
+    private final boolean reload;
+    private String page;
+    /**
+     * @param code markdown部分
+     * @param etag
+     * @param reload trueの場合、reloadイベントで読み込み直すスクリプトを埋め込みます
+     */
+    private Page(final String code,final String etag,final boolean reload){
+      this.code = code;
+      this.etag = etag;
+      this.reload = reload;
+    }
+    private synchronized String getHtml(){
+      if(page == null){
+        String body = html.createHtml(null, code, assetMapper);
+        if(reload){
+          final int index = body.lastIndexOf("</body>");
+          final String script = createReloadScript(etag.replace("\"", ""));
+          body = index==-1? body+script: body.substring(0, index)+script+body.substring(index);
+        }
+        page = body;
+      }
+      return page;
+    }
+  }
+
+  /**
+   * /__markedj/eventsに接続しているブラウザ。<br/>
+   * イベントはserverのExecutorで順番に書き込むので、postはすぐに戻ります。
+   */
+  private final class Client implements Runnable{
+    private final HttpExchange exchange;
+    private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    /**
+     * 書き込みを始めた時間。書き込んでいない場合は0
+     */
+    private volatile long writing = 0;
+    private Client(final HttpExchange exchange){
+      this.exchange = exchange;
+    }
+
+    private void post(final byte[] data){
+      final long w = writing;
+      if(w != 0 && System.nanoTime()-w > WRITE_TIMEOUT){
+        //受け取らないブラウザ
+        close();
+        return;
+      }
+      queue.add(data);
+      schedule();
+    }
+
+    private void schedule(){
+      if(!queue.isEmpty() && scheduled.compareAndSet(false, true)){
+        try{
+          executor.execute(this);
+        }catch(final RejectedExecutionException e){
+          scheduled.set(false);
+        }
+      }
+    }
+
+    @Override
+    public void run(){
+      try{
+        final OutputStream out = exchange.getResponseBody();
+        byte[] data;
+        while((data = queue.poll())!=null){
+          writing = System.nanoTime();
+          out.write(data);
+        }
+        out.flush();
+      }catch(final IOException e){
+        close();
+        return;
+      }finally{
+        writing = 0;
+        scheduled.set(false);
+      }
+      schedule();
+    }
+
+    private void close(){
+      if(clients.remove(this)){
+        queue.clear();
+        //書き込み中のスレッドが止まっていることがあるので、別のスレッドで閉じる
+        try{
+          executor.execute(exchange::close);
+        }catch(final RejectedExecutionException e){
+        }
+      }
+    }
+  }
+
+  private final MarkedHTML html;
+  private final String nonce = Long.toHexString(System.currentTimeMillis());
+  private final List<Client> clients = new CopyOnWriteArrayList<>();
+  private final InvalidationListener listener = o->update();
+  private final List<URI> assets = new CopyOnWriteArrayList<>();
+  private final Function<URI, String> assetMapper = this::toAssetPath;
+  private final boolean browser;
+  private volatile Page page;
+  private volatile Page view;
+  private volatile Path directory;
+  private long generation = 0;
+  private HttpServer server;
+  /**
+   * 受け付けるHostヘッダーの値(ホスト:ポート)
+   */
+  private volatile Set<String> hosts = Collections.emptySet();
+  private ExecutorService executor;
+  private ScheduledExecutorService keepAlive;
+
+  public PreviewServer(final MarkedHTML html){
+    this(html, true);
+  }
+
+  /**
+   * @param html
+   * @param browser falseの場合、ブラウザで表示するページ(/)は作らず、publishしたページだけを返します
+   */
+  public PreviewServer(final MarkedHTML html,final boolean browser){
+    this.html = requireNonNull(html,"html");
+    this.browser = browser;
+  }
+
+  /**
+   * サーバーを開始します。FXのスレッドで呼び出してください。
+   * @param address
+   * @throws IOException
+   */
+  public void start(final InetSocketAddress address)throws IOException{
+    if(server!=null){
+      return;
+    }
+    final ThreadGroup group = new ThreadGroup("Markdown preview server");
+    group.setDaemon(true);
+    executor = Executors.newCachedThreadPool(r->{
+      final Thread t = new Thread(group, r);
+      t.setDaemon(true);
+      return t;
+    });
+    keepAlive = Executors.newSingleThreadScheduledExecutor(r->{
+      final Thread t = new Thread(group, r, "markdown preview keep alive");
+      t.setDaemon(true);
+      return t;
+    });
+    server = HttpServer.create(address, 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+    final int port = server.getAddress().getPort();
+    hosts = new HashSet<>(Arrays.asList("localhost:"+port, "127.0.0.1:"+port, "[::1]:"+port,
+        getURI().getAuthority().toLowerCase()));
+    if(browser){
+      keepAlive.scheduleWithFixedDelay(()->send(": keep-alive\n\n"), 15, 15, TimeUnit.SECONDS);
+      html.htmlProperty().addListener(listener);
+      update();
+    }
+  }
+
+  /**
+   * サーバーを停止します。FXのスレッドで呼び出してください。
+   */
+  public void stop(){
+    if(server==null){
+      return;
+    }
+    html.htmlProperty().removeListener(listener);
+    for(final Client c:clients){
+      c.close();
+    }
+    server.stop(0);
+    keepAlive.shutdownNow();
+    executor.shutdownNow();
+    server = null;
+  }
+
+  public boolean isRunning(){
+    return server!=null;
+  }
+
+  /**
+   * @return ページのURI。開始していない場合はnull
+   */
+  public URI getURI(){
+    if(server==null){
+      return null;
+    }
+    final InetSocketAddress a = server.getAddress();
+    final String host = a.getAddress()==null || a.getAddress().isAnyLocalAddress()? "127.0.0.1": a.getAddress().getHostAddress();
+    return URI.create("http://"+(host.indexOf(':')==-1? host: "["+host+"]")+":"+a.getPort()+"/");
+  }
+
+  /**
+   * htmlが変わったときに、公開するページを入れ替えてブラウザに通知します。ページはブラウザが読み込むときに作成します。
+   */
+  private void update(){
+    html.getHtml();//次の変更を通知してもらうために、htmlを有効な状態に戻す
+    final MarkedReader r = html.getReader();
+    final String etag = nonce+"-"+(++generation);
+    setDirectory(r);
+    page = new Page(r==null? null: r.getCode(), "\""+etag+"\"", true);
+    send("event: reload\ndata: "+etag+"\n\n");
+  }
+
+  /**
+   * markdown部分をcodeにしたページを公開します。FXのスレッドで呼び出してください。<br/>
+   * ブラウザに公開しているページとは別に、最後に公開したページを一つだけ保持します。
+   * @param code markdown部分。nullの場合は出力しません
+   * @return ページのURI。世代毎に異なるURIを返します。開始していない場合はnull
+   */
+  public URI publish(final String code){
+    if(server==null){
+      return null;
+    }
+    final String etag = nonce+"-"+(++generation);
+    setDirectory(html.getReader());
+    view = new Page(code, "\""+etag+"\"", false);
+    return getURI().resolve(VIEW.substring(1)+"?g="+etag);
+  }
+
+  private void setDirectory(final MarkedReader r){
+    directory = r==null? null: r.getDirectory().toAbsolutePath().normalize();
+  }
+
+  /**
+   * fileのURIを、/__markedj/asset/番号/バージョン/ファイル名に変換します。
+   * バージョンはファイルのサイズと更新日時なので、ファイルが変わるとパスも変わります。
+   */
+  private String toAssetPath(final URI u){
+    if(!"file".equals(u.getScheme())){
+      return u.toString();
+    }
+    int i;
+    synchronized (assets) {
+      i = assets.indexOf(u);
+      if(i==-1){
+        i = assets.size();
+        assets.add(u);
+      }
+    }
+    String version;
+    try{
+      version = getVersion(Files.readAttributes(Paths.get(u), BasicFileAttributes.class));
+    }catch(final IOException|RuntimeException e){
+      version = "0";
+    }
+    final String path = u.getRawPath();
+    return ASSET+i+"/"+version+path.substring(path.lastIndexOf('/'));
+  }
+
+  private static String getVersion(final BasicFileAttributes a){
+    return Long.toHexString(a.size())+"-"+Long.toHexString(a.lastModifiedTime().toMillis());
+  }
+
+  /**
+   * reloadイベントを受け取ったときに、ページを読み込み直すスクリプト。スクロール位置は保持します。
+   */
+  private static String createReloadScript(final String etag){
+    return "<script>(function(){"
+        + "var k='__markedjScroll',g='"+etag+"';"
+        + "try{var y=sessionStorage.getItem(k);"
+        + "if(y!==null){sessionStorage.removeItem(k);window.addEventListener('load',function(){window.scrollTo(0,+y);},false);}"
+        + "}catch(x){}"
+        + "if(!window.EventSource){return;}"
+        + "new EventSource('"+EVENTS+"').addEventListener('reload',function(e){"
+        + "if(e.data===g){return;}"
+        + "try{sessionStorage.setItem(k,window.pageYOffset);}catch(x){}"
+        + "location.reload();"
+        + "},false);"
+        + "})();</script>\n";
+  }
+
+  /**
+   * 全てのブラウザにeventを送ります。書き込みを待たずに戻ります。
+   */
+  private void send(final String event){
+    final byte[] data = event.getBytes(StandardCharsets.UTF_8);
+    for(final Client c:clients){
+      c.post(data);
+    }
+  }
+
+  private void handle(final HttpExchange e)throws IOException{
+    try{
+      final String method = e.getRequestMethod();
+      if(!method.equals("GET") && !method.equals("HEAD")){
+        e.getResponseHeaders().set("Allow", "GET, HEAD");
+        e.sendResponseHeaders(405, -1);
+        e.close();
+        return;
+      }
+      if(!isAllowedHost(e.getRequestHeaders().getFirst("Host"))){
+        //DNS rebindingで他のサイトのページからファイルを読まれないようにする
+        sendError(e, 421);
+        return;
+      }
+      final String path = e.getRequestURI().getPath();
+      final Page p = page;
+      final Path dir = directory;
+      if(path.equals("/")){
+        sendPage(e, p, "no-cache");
+      }else if(path.equals(VIEW)){
+        sendPage(e, view, "no-store");
+      }else if(path.equals(EVENTS) && browser){
+        openEvents(e, p);
+      }else if(path.startsWith(ASSET)){
+        sendAsset(e, path.substring(ASSET.length()));
+      }else if(dir!=null){
+        sendFile(e, dir, path.substring(1), false);
+      }else{
+        sendError(e, 404);
+      }
+    }catch(final IOException|RuntimeException ex){
+      e.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Hostが開始したアドレス、localhost、127.0.0.1のいずれか(ポートを含む)の場合true。<br/>
+   * 全てのアドレスで待ち受けている場合は、IPアドレスで指定されたものも受け付けます。
+   */
+  private boolean isAllowedHost(final String host){
+    if(host==null){
+      return false;
+    }
+    final String h = host.trim().toLowerCase();
+    if(hosts.contains(h)){
+      return true;
+    }
+    final InetSocketAddress a = server==null? null: server.getAddress();
+    if(a==null || a.getAddress()==null || !a.getAddress().isAnyLocalAddress()
+        || !h.endsWith(":"+a.getPort())){
+      return false;
+    }
+    //DNS rebindingは名前でしか起きないので、IPアドレスならどのインターフェースでもよい
+    final String name = h.substring(0, h.length()-String.valueOf(a.getPort()).length()-1);
+    return name.startsWith("[") && name.endsWith("]") || name.matches("[0-9.]+");
+  }
+
+  private void sendPage(final HttpExchange e,final Page p,final String cache)throws IOException{
+    if(p==null){
+      sendError(e, 404);
+      return;
+    }
+    final Headers h = e.getResponseHeaders();
+    h.set("Content-Type", "text/html; charset=utf-8");
+    h.set("Cache-Control", cache);
+    h.set("ETag", p.etag);
+    if(isNotModified(e, p.etag)){
+      e.sendResponseHeaders(304, -1);
+      e.close();
+      return;
+    }
+    final byte[] data = p.getHtml().getBytes(StandardCharsets.UTF_8);
+    send(e, data);
+  }
+
+  private void openEvents(final HttpExchange e,final Page p)throws IOException{
+    final Headers h = e.getResponseHeaders();
+    h.set("Content-Type", "text/event-stream; charset=utf-8");
+    h.set("Cache-Control", "no-cache");
+    e.sendResponseHeaders(200, 0);
+    final OutputStream out = e.getResponseBody();
+    out.write(("retry: 1000\n"+(p==null? "\n": "event: reload\ndata: "+p.etag.replace("\"", "")+"\n\n"))
+        .getBytes(StandardCharsets.UTF_8));
+    out.flush();
+    //ページが更新されたときに書き込むので、閉じない
+    clients.add(new Client(e));
+  }
+
+  private void sendAsset(final HttpExchange e,final String path)throws IOException{
+    //番号/バージョン/パス
+    final String[] a = path.split("/", 3);
+    final int index;
+    try{
+      index = a.length==3? Integer.parseInt(a[0]): -1;
+    }catch(final NumberFormatException ex){
+      sendError(e, 404);
+      return;
+    }
+    if(index < 0 || index >= assets.size()){
+      sendError(e, 404);
+      return;
+    }
+    //CSSの中の相対パスは、CSSのあるディレクトリから探す
+    final Path file = Paths.get(assets.get(index));
+    sendFile(e, file.getParent(), a[2], a[2].equals(file.getFileName().toString()));
+  }
+
+  /**
+   * @param immutable trueの場合、max-ageを付けて返します
+   */
+  private void sendFile(final HttpExchange e,final Path directory,final String path,final boolean immutable)throws IOException{
+    final Path file;
+    try{
+      file = directory.resolve(path).normalize();
+    }catch(final RuntimeException ex){
+      sendError(e, 404);
+      return;
+    }
+    if(!file.startsWith(directory) || !Files.isRegularFile(file) || !Files.isReadable(file)){
+      sendError(e, 404);
+      return;
+    }
+    final BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+    final String etag = "\""+getVersion(a)+"\"";
+    final Headers h = e.getResponseHeaders();
+    h.set("Content-Type", getContentType(file));
+    h.set("Cache-Control", immutable? MAX_AGE: "no-cache");
+    h.set("ETag", etag);
+    if(isNotModified(e, etag)){
+      e.sendResponseHeaders(304, -1);
+      e.close();
+      return;
+    }
+    send(e, Files.readAllBytes(file));
+  }
+
+  private static void send(final HttpExchange e,final byte[] data)throws IOException{
+    if(e.getRequestMethod().equals("HEAD")){
+      e.getResponseHeaders().set("Content-Length", String.valueOf(data.length));
+      e.sendResponseHeaders(200, -1);
+      e.close();
+      return;
+    }
+    e.sendResponseHeaders(200, data.length==0? -1: data.length);
+    try(OutputStream out = e.getResponseBody()){
+      out.write(data);
+    }
+  }
+
+  private static void sendError(final HttpExchange e,final int code)throws IOException{
+    e.sendResponseHeaders(code, -1);
+    e.close();
+  }
+
+  private static boolean isNotModified(final HttpExchange e,final String etag){
+    final List<String> list = e.getRequestHeaders().get("If-None-Match");
+    if(list==null){
+      return false;
+    }
+    for(final String v:list){
+      for(final String t:v.split(",")){
+        final String s = t.trim();
+        if(s.equals(etag) || s.equals("W/"+etag) || s.equals("*")){
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String getContentType(final Path p){
+    final String name = p.getFileName().toString();
+    final int i = name.lastIndexOf('.');
+    final String type = i==-1? null: CONTENT_TYPES.get(name.substring(i+1).toLowerCase());
+    if(type!=null){
+      return type;
+    }
+    try{
+      final String t = Files.probeContentType(p);
+      if(t!=null){
+        return t;
+      }
+    }catch(final IOException e){
+    }
+    return "application/octet-stream";
+  }
+}
@@ -0,0 +1,177 @@
+package nodamushi.jfx.markedj;
+
+import static java.util.Objects.*;
+
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import nodamushi.nio.FileFingerprint;
+
+/**
+ * レンダリングしたHTMLをメモリ上に保持するLRUキャッシュ。<br/>
+ * ファイルのパスとレンダリングの設定毎に、最後にレンダリングした結果を一つだけ保持します。<br/>
+ * 保持するHTMLの合計サイズ(文字数×2バイト)がcapacityを超えた場合は、古いものから削除します。
+ * また、HTMLはSoftReferenceで保持するので、メモリが足りなくなった場合はGCによって削除されます。
+ * @author nodamushi
+ *
+ */
+public class RenderCache{
+
+  public static final class Entry{
+    private final FileFingerprint fingerprint;
+    private final String code;
+    private Entry(final FileFingerprint fingerprint,final String code){
+      this.fingerprint = fingerprint;
+      this.code = code;
+    }
+    public FileFingerprint getFingerprint(){
+      return fingerprint;
+    }
+    public String getCode(){
+      return code;
+    }
+  }
+
+  private static final class Key{
+    private final Path path;
+    private final Object settings;
+    private Key(final Path path,final Object settings){
+      this.path = path.toAbsolutePath().normalize();
+      this.settings = settings;
+    }
+    @Override
+    public int hashCode(){
+      return path.hashCode()*31+Objects.hashCode(settings);
+    }
+    @Override
+    public boolean equals(final Object obj){
+      if(!(obj instanceof Key)){
+        return false;
+      }
+      final Key k = (Key)obj;
+      return path.equals(k.path) && Objects.equals(settings, k.settings);
+    }
+  }
+
+  private static final class Value{
+    private final FileFingerprint fingerprint;
+    private final SoftReference<String> code;
+    private final long size;
+    private Value(final FileFingerprint fingerprint,final String code){
+      this.fingerprint = fingerprint;
+      this.code = new SoftReference<>(code);
+      size = code.length()*2L;
+    }
+  }
+
+  private static final RenderCache DEFAULT = new RenderCache(64L*1024*1024);
+
+  public static RenderCache getDefault(){
+    return DEFAULT;
+  }
+
+  private final LinkedHashMap<Key, Value> map = new LinkedHashMap<>(16, 0.75f, true);
+  private long capacity;
+  private long size = 0;
+
+  /**
+   * @param capacity 保持するHTMLの合計サイズの上限(バイト)。0以下の場合は何も保持しません。
+   */
+  public RenderCache(final long capacity){
+    this.capacity = capacity;
+  }
+
+  public synchronized long getCapacity(){
+    return capacity;
+  }
+
+  public synchronized void setCapacity(final long capacity){
+    this.capacity = capacity;
+    trim();
+  }
+
+  /**
+   * ファイルを読まずに、サイズと更新日時が一致するキャッシュを探します。
+   * @param path
+   * @param settings レンダリング結果に影響する設定。equalsで比較します
+   * @param a ファイルの属性
+   * @return 見つからない場合はnull
+   */
+  public synchronized Entry get(final Path path,final Object settings,final BasicFileAttributes a){
+    final Key k = new Key(path, settings);
+    final Value v = map.get(k);
+    if(v == null || !v.fingerprint.isSameStat(a)){
+      return null;
+    }
+    return toEntry(k, v);
+  }
+
+  /**
+   * 内容のハッシュ値が一致するキャッシュを探します。
+   * @param path
+   * @param settings レンダリング結果に影響する設定。equalsで比較します
+   * @param f ファイルの内容
+   * @return 見つからない場合はnull
+   */
+  public synchronized Entry get(final Path path,final Object settings,final FileFingerprint f){
+    final Key k = new Key(path, settings);
+    final Value v = map.get(k);
+    if(v == null || !v.fingerprint.equals(f)){
+      return null;
+    }
+    return toEntry(k, v);
+  }
+
+  private Entry toEntry(final Key k,final Value v){
+    final String code = v.code.get();
+    if(code == null){
+      //GCで削除された
+      map.remove(k);
+      size -= v.size;
+      return null;
+    }
+    return new Entry(v.fingerprint, code);
+  }
+
+  public synchronized void put(final Path path,final Object settings,final FileFingerprint f,final String code){
+    requireNonNull(f,"f");
+    requireNonNull(code,"code");
+    final Value v = new Value(f, code);
+    final Key k = new Key(path, settings);
+    if(v.size > capacity){
+      final Value old = map.remove(k);
+      if(old != null){
+        size -= old.size;
+      }
+      return;
+    }
+    final Value old = map.put(k, v);
+    if(old != null){
+      size -= old.size;
+    }
+    size += v.size;
+    trim();
+  }
+
+  public synchronized void clear(){
+    map.clear();
+    size = 0;
+  }
+
+  private void trim(){
+    final Iterator<Map.Entry<Key, Value>> it = map.entrySet().iterator();
+    while(it.hasNext()){
+      final Value v = it.next().getValue();
+      if(size <= capacity && v.code.get() != null){
+        break;
+      }
+      it.remove();
+      size -= v.size;
+    }
+  }
+}
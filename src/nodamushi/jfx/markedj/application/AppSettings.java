@@ -0,0 +1,145 @@
+package nodamushi.jfx.markedj.application;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import nodamushi.config.Settings;
+import nodamushi.jfx.markedj.DiskRenderCache;
+import nodamushi.jfx.markedj.MarkdownEngine;
+import nodamushi.jfx.markedj.MarkedHTML;
+import nodamushi.jfx.markedj.MarkedHTML.CSS;
+import nodamushi.jfx.markedj.MarkedHTML.Script;
+import nodamushi.jfx.markedj.MarkedReader;
+import nodamushi.jfx.markedj.ParallelRenderer;
+import nodamushi.jfx.markedj.RenderCache;
+
+/**
+ * appdata/configの設定を読み込んで、MarkedReaderやMarkedHTMLに反映します。<br/>
+ * JavaFXを起動しないMarkedjBatchからも使うので、FXのスレッドが必要な処理は含めないでください。
+ * @author nodamushi
+ *
+ */
+public final class AppSettings{
+
+  public static final String CONFIG_FILE = "appdata/config";
+
+  /**
+   * claz(またはjar)のあるディレクトリを基準にするSettingsを作成します。binディレクトリの場合は、その親を基準にします。
+   * @param claz
+   * @return
+   */
+  public static Settings newSettings(final Class<?> claz){
+    final Settings s = new Settings(claz);
+    if(s.getBasePath().endsWith("bin")){
+      s.setBasePath(s.getBasePath().getParent());
+    }
+    return s;
+  }
+
+  /**
+   * configを読み込んで、レンダリングの設定を反映します。
+   * @param s
+   */
+  public static void readConfig(final Settings s){
+    s.readProperty(CONFIG_FILE);
+    final String engine = s.getProperty().get("markdown.engine").orElse("").trim();
+    if(!engine.isEmpty()){
+      final MarkdownEngine e = MarkdownEngine.find(engine);
+      if(e==null){
+        System.err.println("markdown engine not found:"+engine);
+      }else{
+        MarkedReader.setDefaultEngine(e);
+      }
+    }
+    final String langPrefix=s.getProperty().get("markdown.code.langprefix").orElse("");
+    MarkedReader.DEFAULT_OPTIONS.setLangPrefix(langPrefix);
+    s.getProperty().getAsInt("markdown.render.threads").ifPresent(MarkedReader::setRenderThreads);
+    s.getProperty().getAsInt("markdown.render.delay").ifPresent(MarkedReader::setDefaultParseDelay);
+    s.getProperty().get("markdown.render.incremental").map(Boolean::parseBoolean)
+    .ifPresent(MarkedReader::setIncrementalRender);
+    s.getProperty().getAsInt("markdown.render.parallel")
+    .ifPresent(size->ParallelRenderer.setThreshold(size*1024));
+    s.getProperty().getAsInt("markdown.render.stream")
+    .ifPresent(size->MarkedReader.setStreamRenderSize(size*1024L));
+    s.getProperty().getAsInt("markdown.cache.size")
+    .ifPresent(size->RenderCache.getDefault().setCapacity(size*1024L*1024L));
+    final String cacheDir = s.getProperty().get("markdown.cache.directory").orElse("").trim();
+    if(!cacheDir.isEmpty()){
+      final int size = s.getProperty().getAsInt("markdown.cache.disk.size").orElse(256);
+      DiskRenderCache.setDefault(new DiskRenderCache(Paths.get(cacheDir), size*1024L*1024L));
+    }
+  }
+
+  /**
+   * configのCSS、JavaScript、bodyの前後に挿入するHTMLをhtmlに設定します。
+   * @param s
+   * @param html
+   */
+  public static void setupHtml(final Settings s,final MarkedHTML html){
+    html.getLinks().addAll(getWebCss(s));
+    html.getScripts().addAll(getMarkdownJs(s));
+    final String pre=s.getProperty().get("markdown.body.pre").orElse("");
+
+    if(!pre.isEmpty()){
+      html.setPreBody(pre);
+    }
+    final String post=s.getProperty().get("markdown.body.post").orElse("");
+    if(!post.isEmpty()){
+      html.setPostBody(post);
+    }
+  }
+
+  public static List<CSS> getWebCss(final Settings s){
+    final String css = s.getProperty().get("markdown.cssfile").orElse("");
+    final String[] arr = css.split(";");
+    final List<CSS> list = new ArrayList<>();
+    for(final String str:arr){
+      final String c = str.trim();
+      if(c.isEmpty()) {
+        continue;
+      }
+      try{
+        final Path p = Paths.get(c);
+        list.add(new CSS(p));
+
+      }catch(final Exception e){
+
+      }
+    }
+    final String code = s.getProperty().get("markdown.css").orElse("");
+    if(!code.isEmpty()){
+      list.add(new CSS(code));
+    }
+    return list;
+  }
+
+  public static List<Script> getMarkdownJs(final Settings s){
+    final String files = s.getProperty().get("markdown.jsfile").orElse("");
+    final String[] arr = files.split(";");
+    final List<Script> list = new ArrayList<>();
+    for(final String str:arr){
+      final String[] ss = str.split(",",2);
+
+      final String c = ss[0].trim();
+      if(c.isEmpty()) {
+        continue;
+      }
+      final String charset = ss.length==2?ss[1].trim():"utf-8";
+      try{
+        final Path p = Paths.get(c);
+        list.add(new Script(p.toUri(), charset));
+      }catch(final Exception e){
+
+      }
+    }
+    final String script = s.getProperty().get("markdown.js").orElse("");
+    if(!script.isEmpty()){
+      list.add(new Script(script));
+    }
+    return list;
+  }
+
+  private AppSettings(){}
+}
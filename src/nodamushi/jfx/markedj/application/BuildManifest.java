@@ -0,0 +1,187 @@
+package nodamushi.jfx.markedj.application;
+
+import static java.util.Objects.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nodamushi.nio.FileFingerprint;
+
+/**
+ * MarkedjBatchが前回変換したファイルを記録するマニフェスト。<br/>
+ * 入力ファイル毎に、入力と出力のFileFingerprintと、変換に使ったテンプレートのハッシュ値を保持します。
+ * テンプレートのハッシュ値には、CSSやJavaScriptなどの依存するファイルの内容も含めます。<br/>
+ * ファイルには1行に1エントリを「入力ファイルの相対パス TAB 入力 TAB 出力 TAB テンプレート」の形式で保存します。
+ * パスの中のバックスラッシュ、タブ、改行はバックスラッシュでエスケープします。
+ * @author nodamushi
+ *
+ */
+final class BuildManifest{
+
+  private static final String HEADER = "# markedj manifest 2";
+
+  static final class Entry{
+    private final FileFingerprint source;
+    private final FileFingerprint output;
+    private final String template;
+    Entry(final FileFingerprint source,final FileFingerprint output,final String template){
+      this.source = requireNonNull(source,"source");
+      this.output = requireNonNull(output,"output");
+      this.template = requireNonNull(template,"template");
+    }
+    FileFingerprint getSource(){
+      return source;
+    }
+    FileFingerprint getOutput(){
+      return output;
+    }
+    String getTemplate(){
+      return template;
+    }
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @param file
+   * @return ファイルが無いか、形式が異なる場合は空のマニフェスト
+   */
+  static BuildManifest read(final Path file){
+    final BuildManifest m = new BuildManifest();
+    if(!Files.isReadable(file)){
+      return m;
+    }
+    try{
+      final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+      if(lines.isEmpty() || !lines.get(0).equals(HEADER)){
+        return m;
+      }
+      for(final String line:lines.subList(1, lines.size())){
+        final String[] a = line.split("\t");
+        if(a.length != 4){
+          continue;
+        }
+        try{
+          m.entries.put(unescape(a[0]), new Entry(FileFingerprint.valueOf(a[1]), FileFingerprint.valueOf(a[2]), a[3]));
+        }catch(final IllegalArgumentException e){
+        }
+      }
+    }catch(final IOException e){
+      e.printStackTrace();
+    }
+    return m;
+  }
+
+  /**
+   * 一時ファイルに書き込んでから置き換えます。
+   * @param file
+   * @throws IOException
+   */
+  void write(final Path file)throws IOException{
+    final Path dir = file.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    final Path tmp = Files.createTempFile(dir, "manifest", ".part");
+    try(BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)){
+      w.write(HEADER);
+      w.write('\n');
+      for(final Map.Entry<String, Entry> e:new TreeMap<>(entries).entrySet()){
+        final Entry v = e.getValue();
+        w.write(escape(e.getKey())+"\t"+v.source+"\t"+v.output+"\t"+v.template);
+        w.write('\n');
+      }
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static String escape(final String s){
+    final StringBuilder sb = new StringBuilder(s.length());
+    for(int i=0;i<s.length();i++){
+      final char c = s.charAt(i);
+      switch(c){
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String unescape(final String s){
+    if(s.indexOf('\\') < 0){
+      return s;
+    }
+    final StringBuilder sb = new StringBuilder(s.length());
+    for(int i=0;i<s.length();i++){
+      final char c = s.charAt(i);
+      if(c != '\\' || i+1 == s.length()){
+        sb.append(c);
+        continue;
+      }
+      final char n = s.charAt(++i);
+      switch(n){
+        case 't':
+          sb.append('\t');
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        default:
+          sb.append(n);
+      }
+    }
+    return sb.toString();
+  }
+
+  Entry get(final String source){
+    return entries.get(source);
+  }
+
+  void put(final String source,final Entry e){
+    entries.put(source, e);
+  }
+
+  Entry remove(final String source){
+    return entries.remove(source);
+  }
+
+  /**
+   * @param directory 入力ディレクトリからの相対パス
+   * @return directoryとその中にあるファイルのエントリ
+   */
+  List<String> getSources(final String directory){
+    final List<String> list = new ArrayList<>();
+    for(final String s:entries.keySet()){
+      if(s.equals(directory) || s.startsWith(directory+"/")){
+        list.add(s);
+      }
+    }
+    return list;
+  }
+
+  List<String> getSources(){
+    return new ArrayList<>(entries.keySet());
+  }
+}
@@ -0,0 +1,703 @@
+package nodamushi.jfx.markedj.application;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import nodamushi.config.Settings;
+import nodamushi.jfx.markedj.MarkedHTML;
+import nodamushi.jfx.markedj.MarkedHTML.Link;
+import nodamushi.jfx.markedj.MarkedHTML.Script;
+import nodamushi.jfx.markedj.MarkedReader;
+import nodamushi.nio.FileFingerprint;
+import nodamushi.nio.FileUtil;
+import nodamushi.nio.FileWatcher;
+import nodamushi.nio.FileWatcher.DirectoryWatchEvent;
+import nodamushi.nio.FileWatcher.FileWatchEvent;
+import nodamushi.nio.FileWatcher.PathWatchEvent;
+
+/**
+ * JavaFXを起動せずに、ディレクトリの中のMarkdownファイルをまとめてHTMLに変換します。<br/>
+ * ビューアと同じMarkedReader、MarkedHTMLとappdata/configの設定を使います。<br/>
+ * <pre>
+ * java -cp markedjviewer.jar nodamushi.jfx.markedj.application.MarkedjBatch [options] 入力ディレクトリ 出力ディレクトリ
+ *   -f, --force       出力が新しい場合も変換し直す
+ *   -t, --threads n   変換に使うスレッド数
+ *   --base            ビューアと同じように、入力ディレクトリを指すbaseタグを出力する
+ *   -i, --incremental マニフェストを使って、変更されたファイルだけを変換する
+ *   -w, --watch       変換した後も入力ディレクトリを監視し、変更されたファイルを変換し直す(--incrementalを含む)
+ * </pre>
+ * @author nodamushi
+ *
+ */
+public class MarkedjBatch{
+
+  /**
+   * 出力ディレクトリに保存するマニフェストのファイル名
+   */
+  public static final String MANIFEST_FILE = ".markedj-manifest";
+
+  public static void main(final String[] args){
+    boolean force = false,base = false,incremental = false,watch = false;
+    int threads = 0;
+    final List<String> paths = new ArrayList<>();
+    for(int i=0;i<args.length;i++){
+      final String a = args[i];
+      switch(a){
+        case "-f":
+        case "--force":
+          force = true;
+          break;
+        case "-t":
+        case "--threads":
+          if(i+1 == args.length){
+            usage();
+            return;
+          }
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "--base":
+          base = true;
+          break;
+        case "-i":
+        case "--incremental":
+          incremental = true;
+          break;
+        case "-w":
+        case "--watch":
+          incremental = watch = true;
+          break;
+        case "-h":
+        case "--help":
+          usage();
+          return;
+        default:
+          paths.add(a);
+      }
+    }
+    if(paths.size()!=2){
+      usage();
+      System.exit(2);
+      return;
+    }
+
+    final Settings s = AppSettings.newSettings(MarkedjBatch.class);
+    AppSettings.readConfig(s);
+    final MarkedHTML html = new MarkedHTML();
+    AppSettings.setupHtml(s, html);
+    final MarkedjBatch b = new MarkedjBatch(Paths.get(paths.get(0)), Paths.get(paths.get(1)), html);
+    final Path config = s.getBasePath().resolve(AppSettings.CONFIG_FILE);
+    b.setForce(force);
+    b.setWriteBase(base);
+    b.setThreads(threads);
+    b.setTemplateTime(getLastModified(config));
+    b.setIncremental(incremental);
+    b.getDependencies().add(config);
+    b.setTemplateUpdater(()->{
+      AppSettings.readConfig(s);
+      html.getLinks().clear();
+      html.getScripts().clear();
+      AppSettings.setupHtml(s, html);
+    });
+    try{
+      b.run();
+    }catch(final IOException e){
+      e.printStackTrace();
+      System.exit(1);
+      return;
+    }
+    b.printStatistics(System.out);
+    if(watch){
+      try{
+        b.watch();
+      }catch(final IOException e){
+        e.printStackTrace();
+        System.exit(1);
+        return;
+      }
+      try{
+        Thread.currentThread().join();
+      }catch(final InterruptedException e){
+      }
+      return;
+    }
+    System.exit(b.getFailed()==0? 0: 1);
+  }
+
+  private static void usage(){
+    System.err.println("usage: MarkedjBatch [-f|--force] [-t|--threads n] [--base] [-i|--incremental] [-w|--watch]"
+        + " <source directory> <output directory>");
+  }
+
+  private static long getLastModified(final Path p){
+    try{
+      return Files.getLastModifiedTime(p).toMillis();
+    }catch(final IOException e){
+      return 0;
+    }
+  }
+
+  private static enum Status{
+    RENDERED,UNCHANGED,SKIPPED
+  }
+
+  private final Path source;
+  private final Path output;
+  private final MarkedHTML html;
+  private boolean force = false;
+  private boolean writeBase = false;
+  private int threads = MarkedReader.getRenderThreads();
+  private long templateTime = 0;
+  private final Set<Path> dependencies = new LinkedHashSet<>();
+  private BuildManifest manifest;
+  private volatile String template = "";
+  private ExecutorService pool;
+  private Runnable templateUpdater;
+
+  private int files;
+  private final AtomicInteger rendered = new AtomicInteger(),unchanged = new AtomicInteger(),
+      skipped = new AtomicInteger(),failed = new AtomicInteger(),deleted = new AtomicInteger();
+  private final AtomicLong bytes = new AtomicLong();
+  private long elapsed;
+
+  /**
+   * @param source 入力ディレクトリ
+   * @param output 出力ディレクトリ
+   * @param html HTMLのテンプレート。readerは使いません
+   */
+  public MarkedjBatch(final Path source,final Path output,final MarkedHTML html){
+    this.source = requireNonNull(source,"source").toAbsolutePath().normalize();
+    this.output = requireNonNull(output,"output").toAbsolutePath().normalize();
+    this.html = requireNonNull(html,"html");
+  }
+
+  /**
+   * trueの場合、出力ファイルが入力ファイルより新しい場合も変換します。
+   */
+  public void setForce(final boolean force){
+    this.force = force;
+  }
+
+  /**
+   * trueの場合、入力ファイルのディレクトリを指すbaseタグを出力します。
+   */
+  public void setWriteBase(final boolean base){
+    writeBase = base;
+  }
+
+  /**
+   * @param threads 0以下の場合はMarkedReader.getRenderThreads()
+   */
+  public void setThreads(final int threads){
+    this.threads = threads > 0? threads: MarkedReader.getRenderThreads();
+  }
+
+  /**
+   * テンプレート(config)の更新日時。これより古い出力ファイルは変換し直します。<br/>
+   * incrementalの場合は使いません。
+   */
+  public void setTemplateTime(final long millis){
+    templateTime = millis;
+  }
+
+  /**
+   * trueの場合、出力ディレクトリのマニフェストに入力と出力のハッシュ値を記録し、
+   * 内容かテンプレートが変わったファイルだけを変換します。
+   */
+  public void setIncremental(final boolean incremental){
+    manifest = incremental? BuildManifest.read(getManifestPath()): null;
+  }
+
+  public boolean isIncremental(){
+    return manifest != null;
+  }
+
+  public Path getManifestPath(){
+    return output.resolve(MANIFEST_FILE);
+  }
+
+  /**
+   * テンプレートが依存するファイル(configなど)。
+   * MarkedHTMLのCSSやJavaScriptのファイルは自動的に依存するファイルになります。<br/>
+   * incrementalの場合、これらのファイルの内容が変わると全てのファイルを変換し直します。
+   * @return
+   */
+  public Set<Path> getDependencies(){
+    return dependencies;
+  }
+
+  /**
+   * watchで、テンプレートが依存するファイルが変更されたときに、変換し直す前に呼び出す処理を設定します。<br/>
+   * configを読み込み直してMarkedHTMLに反映するために使います。
+   * @param r
+   */
+  public void setTemplateUpdater(final Runnable r){
+    templateUpdater = r;
+  }
+
+  /**
+   * 入力ディレクトリの中のMarkdownファイルを全て変換します。<br/>
+   * incrementalの場合は、削除された入力ファイルの出力も削除します。
+   * @throws IOException 入力ディレクトリを読めなかった場合
+   */
+  public synchronized void run()throws IOException{
+    resetStatistics();
+    final List<Path> list = collect(source);
+    files = list.size();
+    template = computeTemplateHash();
+    build(list);
+    if(manifest!=null){
+      final Set<String> sources = new HashSet<>();
+      for(final Path p:list){
+        sources.add(getRelativePath(p));
+      }
+      for(final String s:manifest.getSources()){
+        if(!sources.contains(s)){
+          removeOutput(s);
+        }
+      }
+      manifest.write(getManifestPath());
+    }
+  }
+
+  /**
+   * 指定したファイルだけを変換します。存在しないファイルやディレクトリの場合は、その出力を削除します。
+   * @param paths 入力ディレクトリの中のファイルかディレクトリ
+   * @throws IOException
+   */
+  public synchronized void update(final Collection<Path> paths)throws IOException{
+    resetStatistics();
+    final Set<Path> list = new LinkedHashSet<>();
+    for(final Path p:paths){
+      final Path a = p.toAbsolutePath().normalize();
+      if(!a.startsWith(source) || a.startsWith(output)){
+        continue;
+      }
+      if(Files.isDirectory(a)){
+        list.addAll(collect(a));
+      }else if(Files.isRegularFile(a)){
+        if(isMarkdown(a)){
+          list.add(a);
+        }
+      }else if(manifest!=null){
+        for(final String s:manifest.getSources(getRelativePath(a))){
+          removeOutput(s);
+        }
+      }
+    }
+    files = list.size();
+    build(list);
+    if(manifest!=null){
+      manifest.write(getManifestPath());
+    }
+  }
+
+  /**
+   * 入力ディレクトリとテンプレートが依存するファイルを監視し、変更があった場合は変換し直します。<br/>
+   * 変更はMarkedReader.getDefaultParseDelay()の間まとめてから変換します。
+   * @throws IOException
+   */
+  public void watch()throws IOException{
+    final FileWatcher w = FileWatcher.getDefault();
+    watching = true;
+    for(final Path dir:collectDirectories(source)){
+      w.watchDirectory(dir, this::onChange);
+    }
+    watchTemplateFiles();
+  }
+
+  /**
+   * テンプレートが依存するファイルの監視を、現在の設定に合わせます。<br/>
+   * configを読み込み直すとCSSやJSが増減するので、templateUpdaterの後にも呼び出します。
+   */
+  private synchronized void watchTemplateFiles(){
+    final FileWatcher w = FileWatcher.getDefault();
+    final Set<Path> files = getTemplateFiles();
+    for(final Iterator<Path> it = templateFiles.iterator();it.hasNext();){
+      final Path p = it.next();
+      if(!files.contains(p)){
+        w.unwatchFile(p, templateListener);
+        it.remove();
+      }
+    }
+    for(final Path p:files){
+      if(templateFiles.add(p)){
+        w.watchFile(p, templateListener);
+      }
+    }
+  }
+
+  private final Set<Path> changes = new LinkedHashSet<>();
+  private boolean templateChanged = false;
+  /**
+   * schedulerとscheduledのロック。run中もFileWatcherのスレッドを待たせないように、thisとは別にする
+   */
+  private final Object scheduleLock = new Object();
+  private ScheduledFuture<?> scheduled;
+  private ScheduledExecutorService scheduler;
+
+  private final Set<Path> templateFiles = new HashSet<>();
+  private volatile boolean watching = false;
+  private final Consumer<PathWatchEvent> templateListener = e->{
+    synchronized (changes) {
+      templateChanged = true;
+    }
+    scheduleUpdate();
+  };
+
+  private void onChange(final PathWatchEvent e){
+    if(!(e instanceof DirectoryWatchEvent)){
+      return;
+    }
+    boolean changed = false;
+    for(final FileWatchEvent f:((DirectoryWatchEvent)e).getFileEvents()){
+      final Path p = f.getKey();
+      if(p.startsWith(output)){
+        continue;
+      }
+      if(f.getKind()==ENTRY_CREATE && Files.isDirectory(p)){
+        try{
+          for(final Path dir:collectDirectories(p)){
+            f.getWatcher().watchDirectory(dir, this::onChange);
+          }
+        }catch(final IOException ex){
+          ex.printStackTrace();
+        }
+      }else if(Files.exists(p) && !isMarkdown(p)){
+        continue;
+      }
+      synchronized (changes) {
+        changes.add(p);
+      }
+      changed = true;
+    }
+    if(changed){
+      scheduleUpdate();
+    }
+  }
+
+  private void scheduleUpdate(){
+    synchronized (scheduleLock) {
+      if(scheduler == null){
+        scheduler = Executors.newSingleThreadScheduledExecutor(r->{
+          final Thread t = new Thread(r, "markdown batch watch");
+          t.setDaemon(true);
+          return t;
+        });
+      }
+      if(scheduled != null){
+        scheduled.cancel(false);
+      }
+      scheduled = scheduler.schedule(this::flush, Math.max(MarkedReader.getDefaultParseDelay(), 0), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void flush(){
+    final List<Path> list;
+    final boolean all;
+    synchronized (changes) {
+      list = new ArrayList<>(changes);
+      changes.clear();
+      all = templateChanged;
+      templateChanged = false;
+    }
+    try{
+      if(all){
+        if(templateUpdater!=null){
+          templateUpdater.run();
+        }
+        if(watching){
+          watchTemplateFiles();
+        }
+        run();
+      }else{
+        update(list);
+      }
+      printStatistics(System.out);
+    }catch(final IOException e){
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * listのファイルを変換します。
+   */
+  private void build(final Collection<Path> list){
+    final long start = System.nanoTime();
+    if(pool == null){
+      pool = Executors.newWorkStealingPool(threads);
+    }
+    try{
+      final List<Path> paths = new ArrayList<>(list);
+      final List<Future<Status>> futures = new ArrayList<>(paths.size());
+      for(final Path p:paths){
+        futures.add(pool.submit(()->convert(p)));
+      }
+      for(int i=0;i<futures.size();i++){
+        try{
+          switch(futures.get(i).get()){
+            case RENDERED:
+              rendered.incrementAndGet();
+              break;
+            case UNCHANGED:
+              unchanged.incrementAndGet();
+              break;
+            case SKIPPED:
+              skipped.incrementAndGet();
+              break;
+          }
+        }catch(final ExecutionException e){
+          failed.incrementAndGet();
+          System.err.println(paths.get(i)+": "+e.getCause());
+        }catch(final InterruptedException e){
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }finally{
+      elapsed = System.nanoTime()-start;
+    }
+  }
+
+  private void resetStatistics(){
+    rendered.set(0);
+    unchanged.set(0);
+    skipped.set(0);
+    failed.set(0);
+    deleted.set(0);
+    bytes.set(0);
+  }
+
+  private List<Path> collect(final Path dir)throws IOException{
+    final List<Path> list = new ArrayList<>();
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>(){
+      @Override
+      public FileVisitResult preVisitDirectory(final Path dir,final BasicFileAttributes attrs){
+        return dir.equals(output)? FileVisitResult.SKIP_SUBTREE: FileVisitResult.CONTINUE;
+      }
+      @Override
+      public FileVisitResult visitFile(final Path file,final BasicFileAttributes attrs){
+        if(attrs.isRegularFile() && isMarkdown(file)){
+          list.add(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return list;
+  }
+
+  private List<Path> collectDirectories(final Path dir)throws IOException{
+    final List<Path> list = new ArrayList<>();
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>(){
+      @Override
+      public FileVisitResult preVisitDirectory(final Path dir,final BasicFileAttributes attrs){
+        if(dir.equals(output)){
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        list.add(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return list;
+  }
+
+  private static boolean isMarkdown(final Path p){
+    final String name = p.getFileName().toString().toLowerCase();
+    return name.endsWith(".md") || name.endsWith(".markdown");
+  }
+
+  /**
+   * @param p 入力ファイル
+   * @return 出力ファイル。拡張子を.htmlに置き換えます
+   */
+  public Path getOutputPath(final Path p){
+    final Path relative = source.relativize(p.toAbsolutePath().normalize());
+    final String name = relative.getFileName().toString();
+    final int index = name.lastIndexOf('.');
+    return output.resolve(relative).resolveSibling((index==-1? name: name.substring(0, index))+".html");
+  }
+
+  /**
+   * マニフェストのキーにする、入力ディレクトリからの相対パス。区切り文字は/
+   */
+  private String getRelativePath(final Path p){
+    return source.relativize(p.toAbsolutePath().normalize()).toString().replace('\\', '/');
+  }
+
+  private void removeOutput(final String relative){
+    final BuildManifest.Entry e = manifest.remove(relative);
+    if(e == null){
+      return;
+    }
+    try{
+      if(Files.deleteIfExists(getOutputPath(source.resolve(relative)))){
+        deleted.incrementAndGet();
+      }
+    }catch(final IOException ex){
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * MarkedHTMLのCSSとJavaScriptのうちローカルにあるファイルと、getDependenciesのファイル
+   */
+  private Set<Path> getTemplateFiles(){
+    final Set<Path> set = new LinkedHashSet<>(dependencies);
+    final List<URI> uris = new ArrayList<>();
+    for(final Link l:html.getLinks()){
+      uris.add(l.getHref());
+    }
+    for(final Script s:html.getScripts()){
+      uris.add(s.getSrc());
+    }
+    for(final URI u:uris){
+      if(u!=null && "file".equals(u.getScheme())){
+        try{
+          set.add(Paths.get(u));
+        }catch(final RuntimeException e){
+        }
+      }
+    }
+    return set;
+  }
+
+  /**
+   * 出力に影響する設定とファイルのハッシュ値
+   */
+  private String computeTemplateHash(){
+    final StringBuilder sb = new StringBuilder();
+    sb.append(MarkedReader.getDefaultEngine().getSettingsKey()).append('\n')
+    .append(writeBase).append('\n')
+    .append(createPage(null, "")).append('\n');
+    for(final Path p:getTemplateFiles()){
+      sb.append(p).append(':');
+      try{
+        sb.append(FileFingerprint.of(p).getHash());
+      }catch(final IOException e){
+        sb.append("missing");
+      }
+      sb.append('\n');
+    }
+    return FileFingerprint.sha1(sb.toString());
+  }
+
+  /**
+   * 出力はUTF-8なので、headの先頭にcharsetを追加します
+   */
+  private String createPage(final Path directory,final String code){
+    final String page = html.createHtml(directory, code);
+    final int i = page.indexOf("<head>\n");
+    if(i < 0){
+      return page;
+    }
+    final int end = i + "<head>\n".length();
+    return page.substring(0, end) + "<meta charset=\"utf-8\">\n" + page.substring(end);
+  }
+
+  private Status convert(final Path p)throws IOException{
+    final Path out = getOutputPath(p);
+    final BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+    final String relative = getRelativePath(p);
+    final BuildManifest.Entry e = manifest==null? null: manifest.get(relative);
+    final String template = this.template;
+    if(!force && manifest==null && Files.isRegularFile(out)){
+      final long t = Files.getLastModifiedTime(out).toMillis();
+      if(t > a.lastModifiedTime().toMillis() && t > templateTime){
+        return Status.SKIPPED;
+      }
+    }
+    final boolean outputSame = !force && e!=null && e.getTemplate().equals(template) && e.getOutput().isSameStat(out);
+    if(outputSame && e.getSource().isSameStat(a)){
+      return Status.SKIPPED;
+    }
+    final ByteBuffer data = FileUtil.readBytes(p);
+    final FileFingerprint f = FileFingerprint.of(a, data);
+    if(outputSame && e.getSource().equals(f)){
+      //更新日時だけが変わった
+      manifest.put(relative, new BuildManifest.Entry(f, e.getOutput(), template));
+      return Status.SKIPPED;
+    }
+    final String code = new MarkedReader(p).render(data);
+    bytes.addAndGet(a.size());
+    final String page = FileUtil.replaceLineSeparator(
+        createPage(writeBase? p.getParent(): null, code), "\n");
+    final Status s;
+    if(Files.isRegularFile(out) && page.equals(FileUtil.readText(out, StandardCharsets.UTF_8))){
+      //内容は同じなので、次回はスキップできるように更新日時だけ更新する
+      Files.setLastModifiedTime(out, FileTime.fromMillis(System.currentTimeMillis()));
+      s = Status.UNCHANGED;
+    }else{
+      Files.createDirectories(out.getParent());
+      FileUtil.writeText(page, StandardCharsets.UTF_8, "\n", out);
+      s = Status.RENDERED;
+    }
+    if(manifest!=null){
+      final FileFingerprint o = FileFingerprint.of(Files.readAttributes(out, BasicFileAttributes.class),
+          page.getBytes(StandardCharsets.UTF_8));
+      manifest.put(relative, new BuildManifest.Entry(f, o, template));
+    }
+    return s;
+  }
+
+  public int getFiles(){
+    return files;
+  }
+
+  public int getRendered(){
+    return rendered.get();
+  }
+
+  public int getUnchanged(){
+    return unchanged.get();
+  }
+
+  public int getSkipped(){
+    return skipped.get();
+  }
+
+  public int getFailed(){
+    return failed.get();
+  }
+
+  public int getDeleted(){
+    return deleted.get();
+  }
+
+  public void printStatistics(final PrintStream out){
+    final double sec = elapsed/1e9;
+    final int converted = rendered.get()+unchanged.get();
+    out.printf("files: %d, rendered: %d, unchanged: %d, skipped: %d, failed: %d, deleted: %d%n",
+        files, rendered.get(), unchanged.get(), skipped.get(), failed.get(), deleted.get());
+    out.printf("time: %.3f s, %.1f files/s, %.2f MB/s (%d threads)%n",
+        sec, sec==0? 0: converted/sec, sec==0? 0: bytes.get()/1024.0/1024.0/sec, threads);
+  }
+}